@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.io.*;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.regex.*;
+import pfc.cab.*;
+
+/**
+ *  Finds mail messages in the Filing Cabinet that match a regular
+ *  expression, in the manner of grep.  The selected fields of every mail
+ *  message are searched by several threads at once, and each matching
+ *  message is printed as soon as it is found, so the output is not in
+ *  cabinet order.
+ *
+ *  @author Ernie Yu
+ */
+public class MailGrep {
+
+    // field bits
+    private static final int SUBJECT = 0x01;
+    private static final int FROM = 0x02;
+    private static final int TO = 0x04;
+    private static final int HEADER = 0x08;
+    private static final int BODY = 0x10;
+
+    private static final String[] FIELD_NAMES =
+        { "subject", "from", "to", "header", "body" };
+
+    // number of items claimed by a worker at one time
+    private static final int RANGE_SIZE = 64;
+
+    private CabinetReader pfcReader;
+    private Cabinet cabinet;
+
+    // Search options.
+    private Pattern pattern;
+    private int fields;
+    private boolean countOnly;
+    private boolean listOnly;
+    private int maxHits;
+
+    // Shared state for workers.
+    private int nextItem;
+    private int hitCount;
+    private volatile boolean stopped;
+    private DateFormat dateFormat;
+    private Throwable workException;
+
+    /** Creates a new instance of MailGrep */
+    public MailGrep() {
+        fields = SUBJECT | BODY;
+        countOnly = false;
+        listOnly = false;
+        maxHits = Integer.MAX_VALUE;
+    }
+
+    /**
+     *  Main program method.  Accepts options, a regular expression, and
+     *  the PFC filename.
+     *  @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        MailGrep grep = new MailGrep();
+        int flags = Pattern.MULTILINE;
+        int arg = 0;
+        try {
+            while ((arg < args.length) && args[arg].startsWith("-")) {
+                String option = args[arg++];
+                if (option.equals("-i")) {
+                    flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                } else if (option.equals("-c") || option.equals("--count")) {
+                    grep.countOnly = true;
+                } else if (option.equals("-l")) {
+                    grep.listOnly = true;
+                } else if (option.equals("-m") && (arg < args.length)) {
+                    grep.maxHits = Integer.parseInt(args[arg++]);
+                } else if (option.startsWith("--max-hits=")) {
+                    grep.maxHits = Integer.parseInt(option.substring(11));
+                } else if (option.equals("-f") && (arg < args.length)) {
+                    grep.fields = parseFields(args[arg++]);
+                } else if (option.startsWith("--fields=")) {
+                    grep.fields = parseFields(option.substring(9));
+                } else {
+                    throw new IllegalArgumentException(option);
+                }
+            }
+        }
+        catch (IllegalArgumentException iax) {
+            // Also catches NumberFormatException.
+            args = new String[0];
+        }
+        if ((args.length - arg != 2) || (grep.fields == 0)) {
+            System.out.println("Usage: MailGrep [options] <pattern> <pfcFile>");
+            System.out.println("  -i                 ignore case");
+            System.out.println("  -c, --count        print number of " +
+                "matching messages only");
+            System.out.println("  -l                 print item index of " +
+                "matching messages only");
+            System.out.println("  -m, --max-hits=N   stop after N " +
+                "matching messages");
+            System.out.println("  -f, --fields=LIST  fields to search, " +
+                "from subject,from,to,header,body");
+            System.out.println("                     (default subject,body)");
+            return;
+        }
+
+        // Check regular expression.
+        try {
+            grep.pattern = Pattern.compile(args[arg], flags);
+        } catch (PatternSyntaxException psx) {
+            System.out.println(psx.getMessage());
+            return;
+        }
+
+        // Open cabinet file, and search mails.
+        grep.openCabinet(args[arg + 1]);
+        grep.searchMail();
+        grep.closeCabinet();
+    }
+
+    /**
+     *  Returns field bits for a comma-separated list of field names.
+     */
+    private static int parseFields(String list) {
+        int bits = 0;
+        String[] names = list.split(",");
+        for (int i = 0; i < names.length; i++) {
+            int field = 0;
+            for (int j = 0; j < FIELD_NAMES.length; j++) {
+                if (FIELD_NAMES[j].equalsIgnoreCase(names[i].trim())) {
+                    field = 1 << j;
+                }
+            }
+            if (field == 0) {
+                throw new IllegalArgumentException(names[i]);
+            }
+            bits |= field;
+        }
+        return bits;
+    }
+
+    /**
+     *  Opens specified cabinet file, and reads all items into Cabinet
+     *  object.  Errors are written to the error stream, so the standard
+     *  output holds only the search results.
+     */
+    private void openCabinet(String pfcName) {
+        // Open PFC file for reading
+        try {
+            CabinetReaderFactory factory =
+                new CabinetReaderFactory(CabinetReader.MAPPED);
+            pfcReader = factory.getReader(new File(pfcName));
+        } catch (IOException ex) {
+            System.err.println("Could not read cabinet file " + pfcName);
+            System.exit(1);
+        }
+
+        // Create cabinet maker and read file.
+        CabinetMaker maker = new CabinetMaker(pfcReader);
+        maker.setThreadCount(Runtime.getRuntime().availableProcessors());
+        maker.setIndexCache(new IndexCache(new File(pfcName)));
+        maker.run();
+
+        // Check exception and progress for errors.
+        Exception exception = maker.getException();
+        int percent = maker.getProgressPct();
+        if ((exception == null) && (percent == 100)) {
+            // Get finished cabinet.
+            cabinet = maker.getCabinet();
+        }
+        else {
+            // Report error and halt.
+            System.err.println("Stopped at " + percent + "%");
+            if (exception != null) {
+                System.err.println(exception.toString());
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Closes cabinet file.
+     */
+    private void closeCabinet() {
+        if (pfcReader != null) {
+            try {
+                pfcReader.close();
+            } catch (IOException iox) {}
+        }
+    }
+
+    /**
+     *  Searches all mail messages on one thread per processor, and prints
+     *  the matching messages.
+     */
+    private void searchMail() {
+        nextItem = 0;
+        hitCount = 0;
+        stopped = (maxHits <= 0);
+        dateFormat = DateFormat.getDateTimeInstance(
+            DateFormat.SHORT, DateFormat.SHORT);
+        workException = null;
+
+        // Start worker threads, and wait for them to finish.
+        int workers = Runtime.getRuntime().availableProcessors();
+        Thread[] threads = new Thread[workers];
+        for (int t = 0; t < workers; t++) {
+            threads[t] = new Thread(new Searcher(), "MailGrep-" + t);
+            threads[t].start();
+        }
+        for (int t = 0; t < workers; t++) {
+            while (threads[t].isAlive()) {
+                try { threads[t].join(); }
+                catch (InterruptedException iex) {}
+            }
+        }
+
+        if (workException != null) {
+            System.err.println(workException.toString());
+            System.exit(1);
+        }
+        if (countOnly) {
+            System.out.println(hitCount);
+        }
+    }
+
+    /**
+     *  Returns first item of the next range to search, or -1 if there are
+     *  no more items.
+     */
+    private synchronized int nextRange() {
+        if (stopped || (nextItem >= cabinet.getItemCount())) {
+            return -1;
+        }
+        int start = nextItem;
+        nextItem += RANGE_SIZE;
+        return start;
+    }
+
+    /**
+     *  Counts and prints a matching message, unless the maximum number of
+     *  hits was already reached.
+     */
+    private synchronized void found(int item, MailMessage message) {
+        if (stopped) {
+            return;
+        }
+        hitCount++;
+        if (hitCount >= maxHits) {
+            stopped = true;
+        }
+        if (countOnly) {
+            return;
+        } else if (listOnly) {
+            System.out.println(item);
+        } else {
+            Date date = message.getDate();
+            System.out.println(item + "\t" +
+                ((date != null) ? dateFormat.format(date) : "") + "\t" +
+                message.getSubject());
+        }
+    }
+
+    /**
+     *  Saves the first exception or error thrown by a worker, and stops
+     *  the others.
+     */
+    private synchronized void fail(Throwable ex) {
+        if (workException == null) {
+            workException = ex;
+        }
+        stopped = true;
+    }
+
+    /**
+     *  Searches ranges of cabinet items until none remain.
+     */
+    private class Searcher implements Runnable {
+
+        private Matcher matcher = pattern.matcher("");
+
+        public void run() {
+            try {
+                ItemTable table = cabinet.getItemTable();
+                int itemCount = cabinet.getItemCount();
+                int start = nextRange();
+                while (start >= 0) {
+                    int end = Math.min(start + RANGE_SIZE, itemCount);
+                    for (int i = start; (i < end) && !stopped; i++) {
+                        if (table.getType(i) == CabinetItem.MAIL_DATA) {
+                            search(i);
+                        }
+                    }
+                    start = nextRange();
+                }
+            }
+            catch (RuntimeException rex) {
+                fail(rex);
+            }
+            catch (Error err) {
+                // Also catches StackOverflowError from a deeply recursive
+                // pattern, so the search is not reported as complete.
+                fail(err);
+            }
+            finally {
+                // End idle inflaters before the thread finishes.
+                InflaterPool.clear();
+            }
+        }
+
+        /**
+         *  Searches the selected fields of a mail message.
+         */
+        private void search(int item) {
+            byte[] content = cabinet.getCabinetItem(item).getContent();
+            if (content == null) {
+                return;
+            }
+            MailMessage message = new MailMessage(content, true);
+            if (((fields & SUBJECT) != 0) && find(message.getSubject()) ||
+                ((fields & FROM) != 0) && find(message.getFrom()) ||
+                ((fields & TO) != 0) && find(message.getTo()) ||
+                ((fields & HEADER) != 0) && find(message.getMailHeader()) ||
+                ((fields & BODY) != 0) && find(message.getBody())) {
+                found(item, message);
+            }
+        }
+
+        /**
+         *  Returns true if the pattern is found in the text.
+         */
+        private boolean find(String text) {
+            return (text != null) && matcher.reset(text).find();
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.io.*;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.regex.*;
+import pfc.cab.*;
+import pfc.search.*;
+
+/**
+ *  Searches the mail messages in the Filing Cabinet.  This program creates
+ *  or updates the search index file next to the cabinet, and lists the
+ *  mail messages that match the query.  With the -s or -r option, the
+ *  trigram index file is used to find text or a regular expression
+ *  anywhere in the subject or body.  With the -k option, every message
+ *  body is scanned for a list of keywords read from a file, one per line.
+ *
+ *  @author Ernie Yu
+ */
+public class MailSearch {
+
+    private static final int WORDS = 0;
+    private static final int TEXT = 1;
+    private static final int PATTERN = 2;
+    private static final int KEYWORDS = 3;
+
+    private CabinetReader pfcReader;
+    private Cabinet cabinet;
+    private SearchIndex index;
+    private TrigramIndex trigrams;
+
+    /** Creates a new instance of MailSearch */
+    public MailSearch() {
+    }
+
+    /**
+     *  Main program method.  Accepts two or more command line arguments,
+     *  PFC filename, an optional -s, -r or -k option, and query words or
+     *  keyword filename.
+     *  @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int mode = WORDS;
+        int first = 1;
+        if (args.length > 2) {
+            if (args[1].equals("-s")) {
+                mode = TEXT;
+                first = 2;
+            } else if (args[1].equals("-r")) {
+                mode = PATTERN;
+                first = 2;
+            } else if (args[1].equals("-k")) {
+                mode = KEYWORDS;
+                first = 2;
+            }
+        }
+        if (args.length <= first) {
+            System.out.println("Usage: MailSearch <pfcFile> [-s | -r] <query>");
+            System.out.println("       MailSearch <pfcFile> -k <keywordFile>");
+            System.out.println("Words must all match; use \"...\" for a " +
+                "phrase and OR for alternatives.");
+            System.out.println("-s finds text, and -r finds a regular " +
+                "expression in the subject or body.");
+            System.out.println("-k finds the keywords listed in a file " +
+                "in every message body.");
+            return;
+        }
+
+        // Join query words.
+        StringBuffer query = new StringBuffer();
+        for (int i = first; i < args.length; i++) {
+            if (i > first) { query.append(' '); }
+            query.append(args[i]);
+        }
+
+        // Check regular expression.
+        Pattern pattern = null;
+        if (mode == PATTERN) {
+            try {
+                pattern = Pattern.compile(query.toString());
+            } catch (PatternSyntaxException psx) {
+                System.out.println(psx.getMessage());
+                return;
+            }
+        }
+
+        // Read keywords.
+        KeywordMatcher matcher = null;
+        if (mode == KEYWORDS) {
+            try {
+                matcher = new KeywordMatcher(readKeywords(args[first]));
+            } catch (IOException iox) {
+                System.out.println(iox);
+                return;
+            }
+        }
+
+        // Create main object, open cabinet file, and search mails.
+        MailSearch searcher = new MailSearch();
+        searcher.openCabinet(args[0]);
+        if (mode == KEYWORDS) {
+            searcher.scanMail(matcher);
+        } else if (mode == WORDS) {
+            searcher.updateIndex();
+        } else {
+            searcher.updateTrigrams();
+        }
+        if (mode != KEYWORDS) {
+            searcher.searchMail(mode, query.toString(), pattern);
+        }
+        searcher.closeCabinet();
+    }
+
+    /**
+     *  Reads keywords from a file, one per line.  Blank lines are ignored.
+     */
+    private static String[] readKeywords(String keywordName)
+        throws IOException {
+        ArrayList keywords = new ArrayList();
+        BufferedReader in = new BufferedReader(new FileReader(keywordName));
+        try {
+            String line = in.readLine();
+            while (line != null) {
+                if (line.trim().length() > 0) {
+                    keywords.add(line.trim());
+                }
+                line = in.readLine();
+            }
+        }
+        finally {
+            in.close();
+        }
+        return (String[])keywords.toArray(new String[keywords.size()]);
+    }
+
+    /**
+     *  Opens specified cabinet file, and reads all items into Cabinet
+     *  object.
+     */
+    private void openCabinet(String pfcName) {
+        // Open PFC file for reading
+        try {
+            CabinetReaderFactory factory =
+                new CabinetReaderFactory(CabinetReader.MAPPED);
+            pfcReader = factory.getReader(new File(pfcName));
+        } catch (IOException ex) {
+            System.err.println("Could not read cabinet file " + pfcName);
+            System.exit(1);
+        }
+
+        // Create cabinet maker and read file.
+        CabinetMaker maker = new CabinetMaker(pfcReader);
+        maker.setThreadCount(Runtime.getRuntime().availableProcessors());
+        maker.setIndexCache(new IndexCache(new File(pfcName)));
+        System.out.println("Reading cabinet file " + pfcName);
+        maker.run();
+
+        // Check exception and progress for errors.
+        Exception exception = maker.getException();
+        int percent = maker.getProgressPct();
+        if ((exception == null) && (percent == 100)) {
+            // Get finished cabinet.
+            cabinet = maker.getCabinet();
+            index = new SearchIndex(new File(pfcName));
+            trigrams = new TrigramIndex(new File(pfcName));
+        }
+        else {
+            // Report error and halt.
+            System.out.println("Stopped at " + percent + "%");
+            if (exception != null) {
+                System.out.println(exception.toString());
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Closes cabinet file.
+     */
+    private void closeCabinet() {
+        if (pfcReader != null) {
+            try {
+                pfcReader.close();
+            } catch (IOException iox) {}
+        }
+    }
+
+    /**
+     *  Creates or updates search index file if it does not match the
+     *  cabinet file.
+     */
+    private void updateIndex() {
+        if (index.open() && index.isCurrent()) {
+            return;
+        }
+        System.out.println("Updating search index " + index.getFile());
+        IndexBuilder builder = new IndexBuilder(cabinet, index);
+        builder.run();
+        Exception exception = builder.getException();
+        if (exception != null) {
+            System.out.println(exception.toString());
+            System.exit(1);
+        }
+        System.out.println(String.valueOf(builder.getParseCount()) +
+            " mail messages indexed.");
+    }
+
+    /**
+     *  Creates trigram index file if it does not match the cabinet file.
+     */
+    private void updateTrigrams() {
+        if (trigrams.open() && trigrams.isCurrent()) {
+            return;
+        }
+        System.out.println("Updating trigram index " + trigrams.getFile());
+        TrigramBuilder builder = new TrigramBuilder(cabinet, trigrams);
+        builder.setThreadCount(Runtime.getRuntime().availableProcessors());
+        builder.run();
+        Exception exception = builder.getException();
+        if (exception != null) {
+            System.out.println(exception.toString());
+            System.exit(1);
+        }
+    }
+
+    /**
+     *  Lists mail messages that match query.
+     */
+    private void searchMail(int mode, String query, Pattern pattern) {
+        long start = System.currentTimeMillis();
+        int[] items;
+        if (mode == TEXT) {
+            items = trigrams.findText(cabinet, query);
+        } else if (mode == PATTERN) {
+            items = trigrams.findPattern(cabinet, pattern);
+        } else {
+            items = index.search(query);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        DateFormat format = DateFormat.getDateTimeInstance(
+            DateFormat.SHORT, DateFormat.SHORT);
+        for (int i = 0; i < items.length; i++) {
+            CabinetItem item = cabinet.getCabinetItem(items[i]);
+            MailMessage message = new MailMessage(item.getContent(), true);
+            Date date = message.getDate();
+            System.out.println(items[i] + "\t" +
+                ((date != null) ? format.format(date) : "") + "\t" +
+                message.getFrom() + "\t" + message.getSubject());
+        }
+        System.out.println(String.valueOf(items.length) +
+            " mail messages found in " + elapsed + " ms.");
+    }
+
+    /**
+     *  Lists keywords found in the body of every mail message, with the
+     *  item index and offset in the body.
+     */
+    private void scanMail(final KeywordMatcher matcher) {
+        System.out.println("Scanning for " + matcher.getKeywordCount() +
+            " keywords");
+        final int[] hitCount = new int[1];
+        KeywordScanner scanner = new KeywordScanner(cabinet, matcher,
+            new KeywordListener() {
+                public void keywordFound(int item, int keyword, int offset) {
+                    System.out.println(item + "\t" + offset + "\t" +
+                        matcher.getKeyword(keyword));
+                    hitCount[0]++;
+                }
+            });
+        scanner.setThreadCount(Runtime.getRuntime().availableProcessors());
+        // Scan body bytes only if they convert to the same characters.
+        scanner.setRawBodies(KeywordScanner.isRawExact());
+        long start = System.currentTimeMillis();
+        scanner.run();
+        long elapsed = System.currentTimeMillis() - start;
+        Exception exception = scanner.getException();
+        if (exception != null) {
+            System.out.println(exception.toString());
+            System.exit(1);
+        }
+        System.out.println(String.valueOf(hitCount[0]) + " keywords found in " +
+            scanner.getMessageCount() + " mail messages in " + elapsed + " ms.");
+    }
+
+}
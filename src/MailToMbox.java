@@ -21,21 +21,25 @@
  */
 
 import java.io.*;
+import java.text.ParseException;
 import pfc.cab.*;
 import pfc.export.*;
 
 /**
  *  Exports all mail messages in the Filing Cabinet to an mbox mail file.  
  *  This program checks all items in the cabinet, and ignores the folder 
- *  structure.
+ *  structure.  If a filter expression is given, only the mail messages
+ *  whose envelopes are selected by the filter are exported.
  *
  *  @author Ernie Yu
  *  <br>02 Mar 2003 - Checks cabinet maker for exceptions, and halts on error.
+ *  <br>17 Oct 2026 - Accepts a filter expression to select mail messages.
  */
 public class MailToMbox {
     
-    private RandomAccessFile pfcFile;
+    private CabinetReader pfcReader;
     private Cabinet cabinet;
+    private EnvelopeFilter filter;
     
     /** Creates a new instance of MailToMbox */
     public MailToMbox() {
@@ -43,12 +47,18 @@ public class MailToMbox {
     
     /**
      *  Main program method.  Accepts two command line arguments, PFC 
-     *  filename and mbox filename.
+     *  filename and mbox filename, and an optional filter expression.
      *  @param args the command line arguments
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println("Usage: MailToMbox <pfcFile> <mboxFile>");
+        if ((args.length < 2) || (args.length > 3)) {
+            System.out.println("Usage: MailToMbox <pfcFile> <mboxFile> [filter]");
+            System.out.println("  filter terms: from:text to:text subject:text " +
+                "date:yyyy[-mm[-dd]]");
+            System.out.println("                since:yyyy-mm-dd before:yyyy-mm-dd " +
+                "is:sent|received|seen|unseen");
+            System.out.println("  terms may be joined with OR, and negated " +
+                "with a leading -");
             return;
         }
 
@@ -60,8 +70,19 @@ public class MailToMbox {
             return;
         }
         
-        // Create main object, open cabinet file, and export mails.
+        // Create main object, and check filter expression.
         MailToMbox converter = new MailToMbox();
+        if (args.length > 2) {
+            try {
+                converter.filter = new EnvelopeFilter(args[2]);
+            } catch (ParseException pex) {
+                System.out.println(pex.getMessage() + " at position " + 
+                    pex.getErrorOffset());
+                return;
+            }
+        }
+
+        // Open cabinet file, and export mails.
         converter.openCabinet(args[0]);
         converter.exportMail(args[1]);
         converter.closeCabinet();
@@ -74,14 +95,18 @@ public class MailToMbox {
     private void openCabinet(String pfcName) {
         // Open PFC file for reading
         try {
-            pfcFile = new RandomAccessFile(pfcName, "r");
-        } catch (FileNotFoundException ex) {
+            CabinetReaderFactory factory = 
+                new CabinetReaderFactory(CabinetReader.MAPPED);
+            pfcReader = factory.getReader(new File(pfcName));
+        } catch (IOException ex) {
             System.err.println("Could not read cabinet file " + pfcName);
             System.exit(1);
         }
 
         // Create cabinet maker and start thread to read file.
-        CabinetMaker maker = new CabinetMaker(pfcFile);
+        CabinetMaker maker = new CabinetMaker(pfcReader);
+        maker.setThreadCount(Runtime.getRuntime().availableProcessors());
+        maker.setIndexCache(new IndexCache(new File(pfcName)));
         Thread thread = new Thread(maker);
         thread.start();
         
@@ -117,9 +142,9 @@ public class MailToMbox {
      * Closes cabinet file.
      */
     private void closeCabinet() {
-        if (pfcFile != null) {
+        if (pfcReader != null) {
             try {
-                pfcFile.close();
+                pfcReader.close();
             } catch (IOException iox) {}
         }
     }
@@ -137,12 +162,34 @@ public class MailToMbox {
         Exporter exporter = factory.getExporter(new File(mboxName));
         try {
             exporter.open();
-            // Loop through items, and export mail messages.
-            for (int i = 0; i < itemCount; i++) {
-                CabinetItem item = cabinet.getCabinetItem(i);
-                if (item.getType() == CabinetItem.MAIL_DATA) {
-                    exporter.export(null, item);
-                    mailCount++;
+            if (filter == null) {
+                // Loop through items, and export mail messages.
+                for (int i = 0; i < itemCount; i++) {
+                    CabinetItem item = cabinet.getCabinetItem(i);
+                    if (item.getType() == CabinetItem.MAIL_DATA) {
+                        exporter.export(null, item);
+                        mailCount++;
+                    }
+                }
+            }
+            else {
+                // Loop through envelopes, and export the mail messages
+                // selected by the filter.  A message with more than one
+                // envelope is exported once.
+                boolean[] exported = new boolean[itemCount];
+                for (int i = 0; i < itemCount; i++) {
+                    CabinetItem item = cabinet.getCabinetItem(i);
+                    int data = item.getData();
+                    if ((item.getType() == CabinetItem.MAIL_ENVELOPE) &&
+                        (data > 0) && (data < itemCount) && !exported[data]) {
+                        CabinetItem dataItem =
+                            filter.getDataItem(cabinet, item);
+                        if (dataItem != null) {
+                            exporter.export(item, dataItem);
+                            exported[data] = true;
+                            mailCount++;
+                        }
+                    }
                 }
             }
         }
@@ -150,7 +197,12 @@ public class MailToMbox {
             System.out.println(iox);
         }
         finally {
-            exporter.close();
+            try {
+                exporter.close();
+            }
+            catch (IOException iox) {
+                System.out.println(iox);
+            }
             System.out.println(String.valueOf(mailCount) + 
                 " mail messages exported.");
             System.out.println("Done.");
@@ -39,58 +39,41 @@ public class Address {
      *  @param content contents of CabinetItem for address
      */
     public Address(byte[] content) {
-        // Parse item content into blocks.
-        ArrayList blockList = ItemBlock.parseItemContent(content);
-
-        // Loop through all item blocks.
-        for (int i = 0; i < blockList.size(); i++) {
-            ItemBlock block = (ItemBlock)blockList.get(i);
-            int blockLen = block.getLength();
-
-            // Get all subitems.
-            ArrayList subItems = BlockSubItem.parseBlockContent(
-                block.getContent());
-
-            short extType = -1;
-
-            // Loop through all subitems.
-            for (int j = 0; j < subItems.size(); j++) {
-                BlockSubItem subItem = (BlockSubItem)subItems.get(j);
-                byte[] data = subItem.getContent();
-
-                if (data.length > 0) {
-                    // Process standard subitem types.
-                    switch (subItem.getId()) {
-                      case 1:
-                        firstName = new String(data);
-                        break;
-                      case 2:
-                        lastName = new String(data);
-                        break;
-                      case 3:
-                        email1 = new String(data);
-                        break;
-                      case 4:
-                        remarks = new String(data);
-                        break;
-                      default:
-                        // Throw other data away.
-                    }
+        // Scan item content, and save address fields.
+        RecordScanner.scan(content, 
+            new RecordVisitor() {
+                public boolean onBlockStart(byte[] buffer, int offset, 
+                    int length) {
+                    return true;
                 }
-                // Process extended subitem types.
-                switch (subItem.getId()) {
-                  case 12:
-                    extType = IntUtil.toShort(data[0], data[1]);
-                    break;
-                  case 13:
+                public boolean onSubItem(short id, byte type, byte[] data,
+                    int offset, int length) {
+                    if (length > 0) {
+                        // Process standard subitem types.
+                        switch (id) {
+                          case 1:
+                            firstName = new String(data, offset, length);
+                            break;
+                          case 2:
+                            lastName = new String(data, offset, length);
+                            break;
+                          case 3:
+                            email1 = new String(data, offset, length);
+                            break;
+                          case 4:
+                            remarks = new String(data, offset, length);
+                            break;
+                          default:
+                            // Throw other data away.
+                        }
+                    }
                     // Extended data unknown, not processed.
-                    extType = -1;   // Reset extended type indicator
-                    break;
-                  default:
-                    // Throw other data away.
+                    return true;
+                }
+                public boolean onBlockEnd() {
+                    return true;
                 }
-            }   // end of loop through subitems.
-        }       // end of loop through item blocks.
+            });
     }
 
     // Accessor methods.
@@ -37,65 +37,53 @@ public class AddressGroup {
      *  @param content contents of CabinetItem for address group
      */
     public AddressGroup(byte[] content) {
-        // Parse item content into blocks.
-        ArrayList blockList = ItemBlock.parseItemContent(content);
-
-        // Loop through all item blocks.
-        for (int i = 0; i < blockList.size(); i++) {
-            ItemBlock block = (ItemBlock)blockList.get(i);
-            int blockLen = block.getLength();
-
-            // Get all subitems.
-            ArrayList subItems = BlockSubItem.parseBlockContent(
-                block.getContent());
-
-            short extType = -1;
-
-            // Loop through all subitems.
-            for (int j = 0; j < subItems.size(); j++) {
-                BlockSubItem subItem = (BlockSubItem)subItems.get(j);
-                byte[] data = subItem.getContent();
-
-                if (data.length > 0) {
-                    // Process standard subitem types.
-                    switch (subItem.getId()) {
-                      case 1:
-                        groupName = new String(data);
-                        break;
-                      case 2:
-                        // Parse data into list of email addresses.
-                        String emails = new String(data);
-                        String delimiter = "\015\012";
-                        int start = 0;
-                        int end = emails.indexOf(delimiter, start);
-                        while (end >= 0) {
-                            emailList.add(emails.substring(start, end));
-                            start = end + delimiter.length();
-                            if (start >= emails.length()) { break; }
-                            end = emails.indexOf(delimiter, start);
-                        }
-                        if (start < emails.length()) {
-                            emailList.add(emails.substring(start));
+        // Scan item content, and save group fields.
+        RecordScanner.scan(content, 
+            new RecordVisitor() {
+                public boolean onBlockStart(byte[] buffer, int offset, 
+                    int length) {
+                    return true;
+                }
+                public boolean onSubItem(short id, byte type, byte[] data,
+                    int offset, int length) {
+                    if (length > 0) {
+                        // Process standard subitem types.
+                        switch (id) {
+                          case 1:
+                            groupName = new String(data, offset, length);
+                            break;
+                          case 2:
+                            addEmails(new String(data, offset, length));
+                            break;
+                          default:
+                            // Throw other data away.
                         }
-                        break;
-                      default:
-                        // Throw other data away.
                     }
-                }
-                // Process extended subitem types.
-                switch (subItem.getId()) {
-                  case 12:
-                    extType = IntUtil.toShort(data[0], data[1]);
-                    break;
-                  case 13:
                     // Extended data unknown, not processed.
-                    extType = -1;   // Reset extended type indicator
-                    break;
-                  default:
-                    // Throw other data away.
+                    return true;
                 }
-            }   // end of loop through subitems.
-        }       // end of loop through item blocks.
+                public boolean onBlockEnd() {
+                    return true;
+                }
+            });
+    }
+
+    /**
+     *  Parses string into list of email addresses.
+     */
+    private void addEmails(String emails) {
+        String delimiter = "\015\012";
+        int start = 0;
+        int end = emails.indexOf(delimiter, start);
+        while (end >= 0) {
+            emailList.add(emails.substring(start, end));
+            start = end + delimiter.length();
+            if (start >= emails.length()) { break; }
+            end = emails.indexOf(delimiter, start);
+        }
+        if (start < emails.length()) {
+            emailList.add(emails.substring(start));
+        }
     }
 
     // Accessor methods.
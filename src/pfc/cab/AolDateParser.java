@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.text.DateFormatSymbols;
+import java.util.*;
+
+/**
+ *  Parses the date strings found in AOL mail messages.  The date string
+ *  is known to take one of three forms: <BR>
+ *  a)  12/2/2001 6:18:53 PM Eastern Standard Time <BR>
+ *  b)  12/2/01 <BR>
+ *  c)  01-12-02 18:18:53 EST <BR>
+ *  The form is chosen from the character after the first number, and
+ *  the fields are read directly from the string.  The results are the
+ *  same as parsing with SimpleDateFormat patterns "M/d/yy h:m:s a z",
+ *  "M/d/yy", and "yy-MM-dd HH:mm:ss z" in turn, but no formatter or
+ *  exception is created for each date.  Time zone names are looked up
+ *  once and kept for later dates.  Each thread uses its own Calendar, so
+ *  dates may be parsed by several threads at the same time.
+ *
+ *  @author Ernie Yu
+ */
+public class AolDateParser {
+
+    /** Value returned when a date string cannot be parsed. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final String GMT = "GMT";
+
+    // maximum number of time zone names kept
+    private static final int MAX_ZONES = 256;
+
+    // zone kinds
+    private static final int NO_ZONE = 0;
+    private static final int OFFSET_ZONE = 1;
+    private static final int NAMED_ZONE = 2;
+
+    private static final ZoneName UNKNOWN_ZONE = new ZoneName(null, false, 0);
+
+    private static String[] ampmStrings =
+        new DateFormatSymbols().getAmPmStrings();
+
+    // Two-digit years are placed in the 100 years after this time.
+    private static long centuryStart;
+    private static int centuryStartYear;
+
+    static {
+        Calendar calendar = new GregorianCalendar();
+        calendar.add(Calendar.YEAR, -80);
+        centuryStart = calendar.getTime().getTime();
+        centuryStartYear = calendar.get(Calendar.YEAR);
+    }
+
+    // Time zone names from DateFormatSymbols, and names already found.
+    private static String[][] zoneStrings = null;
+    private static HashMap zoneCache = new HashMap();
+    private static String cacheZoneId = null;
+
+    private static ThreadLocal states = new ThreadLocal() {
+        protected Object initialValue() {
+            return new ParseState();
+        }
+    };
+
+    /**
+     *  Parses AOL date string and returns the time in milliseconds since
+     *  January 1, 1970 GMT.  Returns INVALID if the date string cannot be
+     *  parsed.
+     */
+    public static long parse(String text) {
+        if (text == null) {
+            return INVALID;
+        }
+        ParseState state = (ParseState)states.get();
+        state.text = text;
+
+        // Find character after the first number.
+        int pos = skipSpace(text, 0);
+        while ((pos < text.length()) &&
+               (Character.digit(text.charAt(pos), 10) >= 0)) {
+            pos++;
+        }
+        char separator = (pos < text.length()) ? text.charAt(pos) : 0;
+
+        long time = INVALID;
+        if (separator == '/') {
+            // Try long form, then date only.
+            if (parseSlashDate(state)) {
+                if (!parseTime12(state)) {
+                    state.ampm = -1;
+                    state.zoneKind = NO_ZONE;
+                }
+                time = getTime(state);
+            }
+        }
+        else if (separator == '-') {
+            if (parseDashDate(state)) {
+                time = getTime(state);
+            }
+        }
+        state.text = null;
+        return time;
+    }
+
+    /**
+     *  Reads date of the form M/d/yy from the start of the string.
+     */
+    private static boolean parseSlashDate(ParseState state) {
+        state.pos = 0;
+        state.month = parseNumber(state);
+        if ((state.month < 0) || !parseChar(state, '/')) { return false; }
+        state.day = parseNumber(state);
+        if ((state.day < 0) || !parseChar(state, '/')) { return false; }
+        return parseYear(state);
+    }
+
+    /**
+     *  Reads time of the form h:m:s a z following the date.
+     */
+    private static boolean parseTime12(ParseState state) {
+        if (!parseChar(state, ' ')) { return false; }
+        int hour = parseNumber(state);
+        if ((hour < 0) || !parseChar(state, ':')) { return false; }
+        state.hour = (hour == 12) ? 0 : hour;
+        state.hourField = Calendar.HOUR;
+        state.minute = parseNumber(state);
+        if ((state.minute < 0) || !parseChar(state, ':')) { return false; }
+        state.second = parseNumber(state);
+        if ((state.second < 0) || !parseChar(state, ' ')) { return false; }
+        state.ampm = parseAmPm(state);
+        if ((state.ampm < 0) || !parseChar(state, ' ')) { return false; }
+        return parseZone(state);
+    }
+
+    /**
+     *  Reads date and time of the form yy-MM-dd HH:mm:ss z.
+     */
+    private static boolean parseDashDate(ParseState state) {
+        state.pos = 0;
+        if (!parseYear(state) || !parseChar(state, '-')) { return false; }
+        state.month = parseNumber(state);
+        if ((state.month < 0) || !parseChar(state, '-')) { return false; }
+        state.day = parseNumber(state);
+        if ((state.day < 0) || !parseChar(state, ' ')) { return false; }
+        state.hour = parseNumber(state);
+        state.hourField = Calendar.HOUR_OF_DAY;
+        if ((state.hour < 0) || !parseChar(state, ':')) { return false; }
+        state.minute = parseNumber(state);
+        if ((state.minute < 0) || !parseChar(state, ':')) { return false; }
+        state.second = parseNumber(state);
+        if ((state.second < 0) || !parseChar(state, ' ')) { return false; }
+        state.ampm = -1;
+        return parseZone(state);
+    }
+
+    /**
+     *  Reads year.  A year of exactly two digits is placed in the 100
+     *  years after the century start.
+     */
+    private static boolean parseYear(ParseState state) {
+        int year = parseNumber(state);
+        if (year < 0) { return false; }
+        state.ambiguousYear = false;
+        if (state.digits == 2) {
+            int ambiguousYear = centuryStartYear % 100;
+            state.ambiguousYear = (year == ambiguousYear);
+            year += (centuryStartYear / 100) * 100 +
+                ((year < ambiguousYear) ? 100 : 0);
+        }
+        state.year = year;
+        return true;
+    }
+
+    /**
+     *  Reads unsigned number after any spaces, and returns its value.
+     *  Returns -1 if no number is found.
+     */
+    private static int parseNumber(ParseState state) {
+        String text = state.text;
+        int pos = skipSpace(text, state.pos);
+        int start = pos;
+        int value = 0;
+        while (pos < text.length()) {
+            int digit = Character.digit(text.charAt(pos), 10);
+            if ((digit < 0) || (pos - start == 9)) { break; }
+            value = (value * 10) + digit;
+            pos++;
+        }
+        if ((pos == start) || ((pos < text.length()) &&
+            (Character.digit(text.charAt(pos), 10) >= 0))) {
+            // No digits, or too many digits.
+            return -1;
+        }
+        state.digits = pos - start;
+        state.pos = pos;
+        return value;
+    }
+
+    /**
+     *  Reads the specified character.  Returns false if it is not found.
+     */
+    private static boolean parseChar(ParseState state, char chr) {
+        if ((state.pos < state.text.length()) &&
+            (state.text.charAt(state.pos) == chr)) {
+            state.pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     *  Reads AM or PM, and returns Calendar.AM or Calendar.PM.  Returns -1
+     *  if neither is found.  Unlike numbers, spaces are not skipped.
+     */
+    private static int parseAmPm(ParseState state) {
+        String text = state.text;
+        int pos = state.pos;
+        int found = -1;
+        int foundLength = 0;
+        for (int i = 0; i < ampmStrings.length; i++) {
+            int len = ampmStrings[i].length();
+            if ((len > foundLength) &&
+                text.regionMatches(true, pos, ampmStrings[i], 0, len)) {
+                found = i;
+                foundLength = len;
+            }
+        }
+        if (found >= 0) {
+            state.pos = pos + foundLength;
+        }
+        return found;
+    }
+
+    /**
+     *  Reads time zone after any spaces.  The zone may be a GMT offset, an
+     *  RFC 822 offset, or a time zone name.  As in SimpleDateFormat, a GMT
+     *  offset is only recognized if there are no extra spaces; otherwise
+     *  GMT is read as a zone name and the offset is ignored.
+     */
+    private static boolean parseZone(ParseState state) {
+        String text = state.text;
+        int pos = skipSpace(text, state.pos);
+        boolean skipped = (pos > state.pos);
+        if (pos >= text.length()) {
+            return false;
+        }
+        char chr = text.charAt(pos);
+        if ((chr == '+') || (chr == '-')) {
+            // Parse offset of the form +hhmm.
+            return parseOffset(state, pos + 1, (chr == '+') ? 1 : -1, false);
+        }
+        else if (!skipped &&
+                 text.regionMatches(true, pos, GMT, 0, GMT.length())) {
+            // Parse offset of the form GMT+hh:mm, or just GMT.
+            pos += GMT.length();
+            chr = (pos < text.length()) ? text.charAt(pos) : 0;
+            if ((chr == '+') || (chr == '-')) {
+                return parseOffset(state, pos + 1, (chr == '+') ? 1 : -1,
+                    true);
+            }
+            state.zoneKind = OFFSET_ZONE;
+            state.zoneOffset = 0;
+            return true;
+        }
+        ZoneName zoneName = getZoneName(text.substring(pos));
+        if (zoneName.zone == null) {
+            return false;
+        }
+        state.zoneKind = NAMED_ZONE;
+        state.zoneName = zoneName;
+        return true;
+    }
+
+    /**
+     *  Reads time zone offset in hours and minutes.  If colon is true, the
+     *  hours may have one digit, and are followed by a colon.
+     */
+    private static boolean parseOffset(ParseState state, int pos, int sign,
+        boolean colon) {
+        String text = state.text;
+        if (text.length() - pos < 4) {
+            return false;
+        }
+        int hours = toDigit(text.charAt(pos++));
+        if (hours < 0) { return false; }
+        int digit = toDigit(text.charAt(pos++));
+        if (digit >= 0) {
+            hours = (hours * 10) + digit;
+        }
+        else if (!colon) {
+            return false;
+        }
+        else {
+            pos--;
+        }
+        if ((hours > 23) || (colon && (text.charAt(pos++) != ':')) ||
+            (text.length() - pos < 2)) {
+            return false;
+        }
+        int tens = toDigit(text.charAt(pos));
+        int ones = toDigit(text.charAt(pos + 1));
+        if ((tens < 0) || (ones < 0) || (tens * 10 + ones > 59)) {
+            return false;
+        }
+        state.zoneKind = OFFSET_ZONE;
+        state.zoneOffset = sign * ((hours * 60) + (tens * 10) + ones) * 60000;
+        return true;
+    }
+
+    /**
+     *  Returns time in milliseconds for the parsed fields.
+     */
+    private static long getTime(ParseState state) {
+        long time = computeTime(state, state.year);
+        if (state.ambiguousYear && (time < centuryStart)) {
+            time = computeTime(state, state.year + 100);
+        }
+        return time;
+    }
+
+    /**
+     *  Sets the parsed fields in the thread calendar, and returns the
+     *  time in milliseconds.  Fields out of range roll over into the next
+     *  field, as in a lenient calendar.
+     */
+    private static long computeTime(ParseState state, int year) {
+        Calendar calendar = state.calendar;
+        calendar.clear();
+        if (state.zoneKind == NAMED_ZONE) {
+            calendar.setTimeZone(state.zoneName.zone);
+        } else {
+            calendar.setTimeZone(TimeZone.getDefault());
+        }
+        calendar.set(Calendar.MONTH, state.month - 1);
+        calendar.set(Calendar.DAY_OF_MONTH, state.day);
+        calendar.set(Calendar.YEAR, year);
+        if (state.zoneKind != NO_ZONE) {
+            calendar.set(state.hourField, state.hour);
+            calendar.set(Calendar.MINUTE, state.minute);
+            calendar.set(Calendar.SECOND, state.second);
+        }
+        if (state.ampm >= 0) {
+            calendar.set(Calendar.AM_PM, state.ampm);
+        }
+        if (state.zoneKind == OFFSET_ZONE) {
+            calendar.set(Calendar.ZONE_OFFSET, state.zoneOffset);
+            calendar.set(Calendar.DST_OFFSET, 0);
+        }
+        else if ((state.zoneKind == NAMED_ZONE) && state.zoneName.setDst) {
+            calendar.set(Calendar.DST_OFFSET, state.zoneName.dstOffset);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     *  Returns time zone for the name at the start of the specified text.
+     *  Names of the default time zone are checked first, and then all
+     *  names in the order given by DateFormatSymbols.  Results are kept,
+     *  so each name is only looked up once.
+     */
+    private static synchronized ZoneName getZoneName(String text) {
+        // Discard names found for a different default time zone.
+        String defaultId = TimeZone.getDefault().getID();
+        if (!defaultId.equals(cacheZoneId) || (zoneCache.size() >= MAX_ZONES)) {
+            zoneCache.clear();
+            cacheZoneId = defaultId;
+        }
+        ZoneName zoneName = (ZoneName)zoneCache.get(text);
+        if (zoneName != null) {
+            return zoneName;
+        }
+
+        if (zoneStrings == null) {
+            zoneStrings = new DateFormatSymbols().getZoneStrings();
+        }
+        zoneName = UNKNOWN_ZONE;
+        for (int i = 0; i < zoneStrings.length; i++) {
+            if (zoneStrings[i][0].equals(defaultId)) {
+                zoneName = matchZoneName(text, zoneStrings[i]);
+                break;
+            }
+        }
+        for (int i = 0; (i < zoneStrings.length) &&
+             (zoneName == UNKNOWN_ZONE); i++) {
+            zoneName = matchZoneName(text, zoneStrings[i]);
+        }
+        zoneCache.put(text, zoneName);
+        return zoneName;
+    }
+
+    /**
+     *  Returns time zone if the text starts with one of the zone names,
+     *  or UNKNOWN_ZONE if it does not.  Names 1 and 2 are standard time
+     *  names, and names 3 and 4 are daylight time names.
+     */
+    private static ZoneName matchZoneName(String text, String[] names) {
+        for (int n = 1; (n <= 4) && (n < names.length); n++) {
+            if ((names[n] != null) &&
+                text.regionMatches(true, 0, names[n], 0, names[n].length())) {
+                TimeZone zone = TimeZone.getTimeZone(names[0]);
+                // Use zone rules if standard and daylight names are the
+                // same, or daylight saving time is not used.
+                boolean sameName = (n <= 2) &&
+                    names[n].equalsIgnoreCase(names[n + 2]);
+                int dstOffset = (n >= 3) ? zone.getDSTSavings() : 0;
+                boolean setDst = !(sameName || ((n >= 3) && (dstOffset == 0)));
+                return new ZoneName(zone, setDst, dstOffset);
+            }
+        }
+        return UNKNOWN_ZONE;
+    }
+
+    /**
+     *  Returns index after any spaces or tabs at the specified index.
+     */
+    private static int skipSpace(String text, int pos) {
+        while ((pos < text.length()) &&
+               ((text.charAt(pos) == ' ') || (text.charAt(pos) == '\t'))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     *  Returns value of ASCII digit, or -1 if not a digit.
+     */
+    private static int toDigit(char chr) {
+        return ((chr >= '0') && (chr <= '9')) ? (chr - '0') : -1;
+    }
+
+    /**
+     *  Time zone found for a zone name.
+     */
+    private static class ZoneName {
+        TimeZone zone;
+        boolean setDst;         // true to use dstOffset, not zone rules
+        int dstOffset;
+
+        ZoneName(TimeZone zone, boolean setDst, int dstOffset) {
+            this.zone = zone;
+            this.setDst = setDst;
+            this.dstOffset = dstOffset;
+        }
+    }
+
+    /**
+     *  Date fields and calendar used by one thread.
+     */
+    private static class ParseState {
+        Calendar calendar = new GregorianCalendar();
+        String text;
+        int pos;
+        int digits;             // number of digits in last number
+        int year;
+        boolean ambiguousYear;
+        int month;
+        int day;
+        int hourField;
+        int hour;
+        int minute;
+        int second;
+        int ampm;
+        int zoneKind;
+        int zoneOffset;
+        ZoneName zoneName;
+    }
+
+}
@@ -25,22 +25,36 @@ package pfc.cab;
 import java.util.*;
 
 /**
- *  Represents a subitem in a mail message block.
+ *  Represents a subitem in a mail message block.  A BlockSubItem is a view
+ *  of the subitem data within the item content, so no bytes are copied.
  *  @author Ernie Yu
+ *  <br>17 Oct 2026 Subitem refers to item content instead of a copy.
  */
 public class BlockSubItem {
 
     private short id;
     private byte type;
-    private byte[] content;
+    private byte[] buffer;          // item content
+    private int offset;             // start of subitem data in content
+    private int length;             // length of subitem data
 
     /**
      *  Constructor.
      */
     public BlockSubItem(short id, byte type, byte[] array) {
+        this(id, type, array, 0, array.length);
+    }
+
+    /**
+     *  Constructor.
+     */
+    public BlockSubItem(short id, byte type, byte[] buffer, int offset,
+        int length) {
         this.id = id;
         this.type = type;
-        this.content = array;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
     }
 
     public short getId() {
@@ -51,62 +65,83 @@ public class BlockSubItem {
         return type;
     }
 
+    /** Returns a copy of the subitem data.
+     */
     public byte[] getContent() {
+        byte[] content = new byte[length];
+        System.arraycopy(buffer, offset, content, 0, length);
         return content;
     }
 
+    /** Returns array holding subitem data.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /** Returns start of subitem data in array.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /** Returns length of subitem data.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /** Returns subitem data converted to a string using the default
+     *  character encoding.
+     */
+    public String getString() {
+        return new String(buffer, offset, length);
+    }
+
+    /** Returns first two bytes of subitem data as a short value.
+     */
+    public short getShort() {
+        if (length < 2) {
+            throw new ArrayIndexOutOfBoundsException(length);
+        }
+        return IntUtil.toShort(buffer[offset], buffer[offset + 1]);
+    }
+
     /** 
      *  Parses block content into an array list of BlockSubItem objects.  
      *  This is a static method to allow content parsing for different 
      *  blocks.
      */
     public static ArrayList parseBlockContent(byte[] content) {
-        
-        ArrayList subItems = new ArrayList();
-        int pos = 0;
-
-        while (pos < content.length) {
-            // Next two bytes should be subitem id.
-            short subId = IntUtil.toShort(content[pos], content[pos + 1]);
-            // Next byte is subitem type.
-            byte subType = content[pos + 2];
-            // Determine subitem position and length.
-            int subOffset;
-            int subLength;
-            switch (subType) {
-                case 1:
-                    subOffset = 3;
-                    subLength = 1;
-                    break;
-                case 2: case 3:
-                    subOffset = 3;
-                    subLength = 2;
-                    break;
-                case 4:
-                    subOffset = 3;
-                    subLength = 4;
-                    break;
-                default:
-                    subOffset = 7;
-                    subLength = IntUtil.toInt(content[pos + 3],
-                        content[pos + 4], content[pos + 5], content[pos + 6]);
-            }
-            // Get subitem content.
-            byte[] subContent = new byte[subLength];
-            for (int i = 0; i < subLength; i++) {
-                subContent[i] = content[pos + subOffset + i];
-            }
-
-            // Create subitem object and add to array.
-            BlockSubItem subItem = new BlockSubItem(
-                subId, subType, subContent);
-            subItems.add(subItem);
-
-            // Advance to next subitem.
-            pos += (subOffset + subLength);
-        }
-        
+        return parseBlockContent(content, 0, content.length);
+    }
+
+    /** 
+     *  Parses block content in the specified part of an array into an
+     *  array list of BlockSubItem objects.
+     */
+    public static ArrayList parseBlockContent(byte[] content, int offset,
+        int length) {
+        final ArrayList subItems = new ArrayList();
+        RecordScanner.scanBlock(content, offset, length, 
+            new RecordVisitor() {
+                public boolean onBlockStart(byte[] buffer, int offset, 
+                    int length) {
+                    return true;
+                }
+                public boolean onSubItem(short id, byte type, byte[] buffer,
+                    int offset, int length) {
+                    // Create subitem object and add to array.
+                    subItems.add(new BlockSubItem(
+                        id, type, buffer, offset, length));
+                    return true;
+                }
+                public boolean onBlockEnd() {
+                    return true;
+                }
+            });
         return subItems;
     }
     
+
 }
@@ -33,22 +33,39 @@ import pfc.export.*;
  *
  *  @author Ernie Yu
  *  <br>02 Mar 2003 Changed item index to zero-based.
+ *  <br>17 Oct 2026 Allows exports on several threads at once.
+ *  <br>17 Oct 2026 Added export with worker threads.
+ *  <br>17 Oct 2026 Added export of envelopes selected by a filter.
  */
 public class Cabinet {
 
+    private CabinetReader reader;
     private int idxStart;
     private int idxLength;
     private int idxCount;
     private int cabStart;
     private int itemCount;
-    private ArrayList itemList;
-    private int exportCount;
+    private ItemTable itemTable;
+    private FolderIndex folderIndex;
 
     /**
      *  Constructor.
      */
     public Cabinet() {
-        itemList = new ArrayList();
+        itemTable = new ItemTable(null, 0);
+        folderIndex = new FolderIndex(itemTable);
+    }
+
+    /** Sets reader for cabinet file.
+     */
+    public void setReader(CabinetReader r) {
+        reader = r;
+    }
+
+    /** Returns reader for cabinet file.
+     */
+    public CabinetReader getReader() {
+        return reader;
     }
 
     /** Sets byte address of cabinet index.
@@ -111,73 +128,195 @@ public class Cabinet {
         return itemCount;
     }
 
-    /** Sets array list of cabinet items.
+    /** Sets table of cabinet items.
+     */
+    public void setItemTable(ItemTable table) {
+        itemTable = table;
+    }
+
+    /** Returns table of cabinet items.
      */
-    public void setItemList(ArrayList list) {
-        itemList = list;
+    public ItemTable getItemTable() {
+        return itemTable;
     }
 
-    /** Returns array list of cabinet items.
+    /** Sets child lists of cabinet items.
      */
-    public ArrayList getItemList() {
-        return itemList;
+    public void setFolderIndex(FolderIndex index) {
+        folderIndex = index;
+    }
+
+    /** Returns child lists of cabinet items.
+     */
+    public FolderIndex getFolderIndex() {
+        return folderIndex;
     }
 
     /**
      *  Returns the item for the specified index.  Input index for this 
-     *  method is zero-based.
+     *  method is zero-based.  The item is a view of the entry in the item
+     *  table.
      */
     public CabinetItem getCabinetItem(int index) {
-        return (CabinetItem)itemList.get(index);
+        if ((index < 0) || (index >= itemTable.size())) {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + itemTable.size());
+        }
+        return new CabinetItem(itemTable, index);
     }
     
     /**
      *  Exports the specified cabinet item using an Exporter.  The item
      *  is usually a folder whose children will be exported.  Returns
-     *  the number of items exported.
+     *  the number of items exported.  Several exports may run on different
+     *  threads at the same time.
      */
     public int export(CabinetItem item, Exporter exporter) 
         throws ExportException {
-        exportCount = 0;
+        return export(item, exporter, null);
+    }
+    
+    /**
+     *  Exports the specified cabinet item using an Exporter, if it is
+     *  selected by the filter.  The item is usually a folder whose 
+     *  children will be exported.  Each envelope is checked by the filter
+     *  before its data item is read, so only the selected items are read
+     *  from the cabinet file.  Returns the number of items exported.
+     *  @param filter filter to select envelopes, or null for all
+     */
+    public int export(CabinetItem item, Exporter exporter, 
+        EnvelopeFilter filter) throws ExportException {
+        int exportCount = 0;
+        boolean completed = false;
         try {
-            exporter.open();
-            if (item.isFolder()) {
-                exportChildren(item, exporter);
+            try {
+                exporter.open();
+                if (item.isFolder()) {
+                    exportCount = exportChildren(item, exporter, filter);
+                }
+                else {
+                    CabinetItem dataItem = getExportData(item, exporter,
+                        filter);
+                    if (dataItem != null) {
+                        exporter.export(item, dataItem);
+                        exportCount++;
+                    }
+                }
+                completed = true;
             }
-            else if (exporter.isExportable(item)) {
-                CabinetItem dataItem = getCabinetItem(item.getData());
-                exporter.export(item, dataItem);
-                exportCount++;
+            finally {
+                close(exporter, completed);
             }
         }
         catch (IOException iox) {
             throw new ExportException(iox.toString());
         }
-        finally {
-            exporter.close();
+        return exportCount;
+    }
+    
+    /**
+     *  Exports the specified cabinet item using an Exporter and several
+     *  threads.  If the item is a folder and the exporter is a
+     *  ParallelExporter, its child items are prepared by the specified 
+     *  number of worker threads, and written in order on the calling 
+     *  thread.  Otherwise the item is exported on the calling thread.  
+     *  Returns the number of items exported.
+     */
+    public int export(CabinetItem item, Exporter exporter, int threadCount) 
+        throws ExportException {
+        return export(item, exporter, threadCount, null);
+    }
+    
+    /**
+     *  Exports the specified cabinet item using an Exporter and several
+     *  threads, if it is selected by the filter.  Only the selected items
+     *  are prepared by the worker threads.  Returns the number of items
+     *  exported.
+     *  @param filter filter to select envelopes, or null for all
+     */
+    public int export(CabinetItem item, Exporter exporter, int threadCount,
+        EnvelopeFilter filter) throws ExportException {
+        if ((threadCount <= 1) || !item.isFolder() ||
+            !(exporter instanceof ParallelExporter)) {
+            return export(item, exporter, filter);
+        }
+        int exportCount = 0;
+        boolean completed = false;
+        try {
+            try {
+                exporter.open();
+                ExportPipeline pipeline = new ExportPipeline(this, 
+                    (ParallelExporter)exporter, threadCount, filter);
+                exportCount = pipeline.export(item);
+                completed = true;
+            }
+            finally {
+                close(exporter, completed);
+            }
+        }
+        catch (IOException iox) {
+            throw new ExportException(iox.toString());
         }
         return exportCount;
     }
     
+    /**
+     *  Closes the exporter at the end of an export.  If the export did
+     *  not complete, problems closing the exporter are ignored, so that
+     *  the exception that stopped the export is reported.
+     */
+    private static void close(Exporter exporter, boolean completed)
+        throws IOException {
+        if (completed) {
+            exporter.close();
+            return;
+        }
+        try {
+            exporter.close();
+        }
+        catch (IOException iox) {}
+        catch (RuntimeException rex) {}
+    }
+    
+    /**
+     *  Returns the data item to export for the item, or null if the item
+     *  cannot be exported by the exporter, or is not selected by the
+     *  filter.  The filter is checked last, as it may read the data item.
+     */
+    private CabinetItem getExportData(CabinetItem item, Exporter exporter, 
+        EnvelopeFilter filter) {
+        if (!exporter.isExportable(item)) {
+            return null;
+        }
+        else if (filter == null) {
+            return getCabinetItem(item.getData());
+        }
+        return filter.getDataItem(this, item);
+    }
+    
     /**
      *  Exports all child items of the specified parent.  This method
      *  will recurse through all sub-folders of the parent, and export
-     *  their child items.
+     *  their child items.  Returns the number of items exported.
      */
-    private void exportChildren(CabinetItem parent, Exporter exporter) 
-        throws ExportException {
+    private int exportChildren(CabinetItem parent, Exporter exporter,
+        EnvelopeFilter filter) throws ExportException {
+        int exportCount = 0;
         try {
             exporter.openFolder(parent);
             int idx = parent.getChild();
             while (idx != 0) {
                 CabinetItem child = getCabinetItem(idx);
                 if (child.isFolder()) {
-                    exportChildren(child, exporter);
+                    exportCount += exportChildren(child, exporter, filter);
                 }
-                else if (exporter.isExportable(child)) {
-                    CabinetItem dataItem = getCabinetItem(child.getData());
-                    exporter.export(child, dataItem);
-                    exportCount++;
+                else {
+                    CabinetItem dataItem = getExportData(child, exporter,
+                        filter);
+                    if (dataItem != null) {
+                        exporter.export(child, dataItem);
+                        exportCount++;
+                    }
                 }
                 idx = child.getNext();
             }
@@ -188,6 +327,7 @@ public class Cabinet {
         finally {
             exporter.closeFolder();
         }
+        return exportCount;
     }
     
 }
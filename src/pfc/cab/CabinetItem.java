@@ -23,7 +23,6 @@
 package pfc.cab;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  *  Represents an entry in the Filing Cabinet.  All entries are either
@@ -34,7 +33,8 @@ import java.io.RandomAccessFile;
  *  serve as links to their corresponding data items.  (Exception:
  *  the root folder has a non-zero data pointer.)  Data records hold
  *  actual content like mail message, favorites, and address book 
- *  information.
+ *  information.  A CabinetItem is a lightweight view of one entry in the
+ *  cabinet's ItemTable, so items may be created and discarded freely.
  *  @author Ernie Yu
  */
 public class CabinetItem {
@@ -57,184 +57,53 @@ public class CabinetItem {
     public static final byte MAIL_SEEN = 0x01;
     public static final byte MAIL_SENT = 0x04;
 
-    private int index;              // position in index table
-    private int address;            // record address in cabinet
-    private int length;             // record length
-    private int type;               // record type
-    private boolean envelope;       // true if record is envelope
-    private boolean folder;         // true if record is folder
-    private boolean sysFolder;      // true if record is system folder
-    private byte flags;             // mail message flags
-
-    // Pointers to other records.
-    private int data;               // pointer to data record
-    private int next;               // pointer to next envelope
-    private int prev;               // pointer to previous envelope
-    private int parent;             // pointer to parent envelope
-    private int child;              // pointer to child envelope
+    // envelope content length
+    public static final int ENVELOPE_LENGTH = 126;
 
-    // Reference to PFC file for future reads
-    // This is used instead of storing the raw record content to save memory.
-    private RandomAccessFile pfcFile;
+    private ItemTable table;        // table holding item fields
+    private int index;              // position in index table
 
     /**
      *  Constructor.
-     *  @param file cabinet file
-     *  @param addr address from which to read cabinet item
+     *  @param table item table for cabinet
+     *  @param index position in index table
      */
-    public CabinetItem(RandomAccessFile file, int addr) throws IOException {
-        pfcFile = file;
-        address = addr;
-
-        // Read the content from the given address
-        byte[] content = readContent();
-
-        // Parse content, and set type and pointers.
-        type = UNKNOWN;
-        envelope = false;
-        folder = false;
-        sysFolder = false;
-
-        // Get first four bytes as characters.
-        // Check content length since AOL 9 contains short items. (12/30/06)
-        StringBuffer header = new StringBuffer();
-        for (int k = 0; k < Math.min(content.length, 4); k++) {
-            header.append((char)content[k]);
-        }
-
-        // Check for data subrecord header
-        if (header.toString().equals("AOLH")) {
-            // Get first subitem; try to determine if mail or address
-            short a = IntUtil.toShort(content[8], content[9]);
-            byte b = content[10];
-            short c = IntUtil.toShort(content[11], content[12]);
-            if (a == 1) {
-                if ((b == '\002') && (c == 0)) {
-                    type = MAIL_DATA;
-                }
-                else if (b == '\005') {
-                    type = ADDR_DATA;
-                }
-            }
-        }
-        // Check for envelope record
-        else if (content.length == 126) {
-            envelope = true;
-
-            short a = IntUtil.toShort(content[0], content[1]);
-            short b = IntUtil.toShort(content[2], content[3]);
-
-            if ((b & 0x0001) == 0x0001) {
-                folder = true;
-                type = FOLDER;
-            }
-            if ((b & 0x0100) == 0x0100) {
-                sysFolder = true;
-            }
-            
-            switch (a) {
-                case 2:
-                    type = FAVE_ENVELOPE;
-                    break;
-                case 3: case 4:
-                    type = FILE_FOLDER;
-                    break;
-                case 5: case 6:
-                    type = FILE_ENVELOPE;
-                    break;
-                case 9:
-                    type = FLASH_ENVELOPE;
-                    break;
-                case 7: case 8: case 12:
-                    type = MAIL_ENVELOPE;
-                    break;
-                case 14: case 15: case 20:
-                    type = POST_ENVELOPE;
-                    break;                    
-                case 17:
-                    type = ADDR_ENVELOPE;
-                    break;
-                case 18:
-                    type = GROUP_ENVELOPE;
-                    break;
-                default:
-                    // not significant for now
-            }
-
-            // Get mail message flags.
-            flags = content[14];
-
-            // Get pointers to other records in index.
-            data = IntUtil.toInt(content[106], content[107],
-                content[108], content[109]);
-            next = IntUtil.toInt(content[110], content[111],
-                content[112], content[113]);
-            prev = IntUtil.toInt(content[114], content[115],
-                content[116], content[117]);
-            parent = IntUtil.toInt(content[118], content[119],
-                content[120], content[121]);
-            child = IntUtil.toInt(content[122], content[123],
-                content[124], content[125]);
-        }
-    }
-
-    private byte[] readContent() throws IOException {
-        byte[] content;
-        if (address != 0) {
-            // Get item length.
-            pfcFile.seek(address + 4);
-            int len = IntUtil.reverseInt(pfcFile.readInt());
-
-            // Read entire item into byte array.
-            content = new byte[len];
-            pfcFile.read(content);
-        } else {
-            // Create empty byte array for zero entry.
-            content = new byte[4];
-        }
-        length = content.length;
-        return content;
-    }
-
-    public void setIndex(int idx) {
-        index = idx;
+    public CabinetItem(ItemTable table, int index) {
+        this.table = table;
+        this.index = index;
     }
 
     public int getIndex() {
         return index;
     }
 
-    public void setAddress(int addr) {
-        address = addr;
-    }
-
     public int getAddress() {
-        return address;
+        return table.getAddress(index);
     }
 
     public int getLength() {
-        return length;
+        return table.getLength(index);
     }
 
     public int getType() {
-        return type;
+        return table.getType(index);
     }
 
     public boolean isEnvelope() {
-        return envelope;
+        return table.isEnvelope(index);
     }
 
     public boolean isFolder() {
-        return folder;
+        return table.isFolder(index);
     }
 
     public boolean isSysFolder() {
-        return sysFolder;
+        return table.isSysFolder(index);
     }
 
     public byte[] getContent() {
         try {
-            return readContent();
+            return table.readContent(index, Integer.MAX_VALUE);
         } catch (IOException ex) {
             // might need a better way of reporting any problems here...
             ex.printStackTrace();
@@ -243,11 +112,11 @@ public class CabinetItem {
     }
 
     public byte getFlags() {
-        return flags;
+        return table.getFlags(index);
     }
     
     public boolean isOutgoing() {
-        if ((flags & MAIL_SENT) == MAIL_SENT) {
+        if ((getFlags() & MAIL_SENT) == MAIL_SENT) {
             return true;
         } else {
             return false;
@@ -258,45 +127,49 @@ public class CabinetItem {
      *  Returns index pointer to data record.
      */
     public int getData() {
-        return data;
+        return table.getData(index);
     }
 
     public int getNext() {
-        return next;
+        return table.getNext(index);
     }
 
     public int getPrev() {
-        return prev;
+        return table.getPrev(index);
     }
 
     public int getParent() {
-        return parent;
+        return table.getParent(index);
     }
 
     public int getChild() {
-        return child;
+        return table.getChild(index);
+    }
+
+    /**
+     *  Returns true if the object is a CabinetItem for the same entry in
+     *  the same cabinet.
+     */
+    public boolean equals(Object obj) {
+        if (obj instanceof CabinetItem) {
+            CabinetItem item = (CabinetItem)obj;
+            return ((item.table == table) && (item.index == index));
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     *  Returns hash code for item.
+     */
+    public int hashCode() {
+        return index;
     }
 
     /**
      *  Returns envelope label for item, or empty string if not an envelope.
      */
     public String toString() {
-        byte content[] = getContent();
-        if (content == null) {
-            return "";
-        }
-        if (envelope) {
-            StringBuffer label = new StringBuffer();
-            for (int i = 18; i < (content.length - 18); i++) {
-                if (content[i] != 0)
-                    label.append((char)content[i]);
-                else
-                    break;
-            }
-            return label.toString();
-        }
-        else {
-            return (new String(""));
-        }
+        return table.getLabel(index);
     }
 }
@@ -33,25 +33,51 @@ import javax.swing.*;
  *
  *  @author Ernie Yu
  *  <br>02 Mar 2003 Creates dummy cabinet item for zero entries.
+ *  <br>17 Oct 2026 Loads index entries on multiple threads.
+ *  <br>17 Oct 2026 Reads item table from index cache file if available.
  */
 public class CabinetMaker implements Runnable {
     
     public static final String CABFILE_ID = "AOLVM100";
 
-    private RandomAccessFile pfcFile;
+    // number of index entries claimed by a loader at one time
+    private static final int RANGE_SIZE = 1024;
+
+    private CabinetReader pfcReader;
     private Cabinet cabinet;
+    private int threadCount;
+    private IndexCache indexCache;
     private int progressPct;
     private JProgressBar progressBar;
     private JDialog progressDialog;
     private Exception exception;
 
+    // Shared state for item loaders.
+    private int[] idxTable;
+    private int idxLength;
+    private ItemTable items;
+    private int nextEntry;
+    private int entriesDone;
+    private volatile boolean cancelled;
+    private Exception loadException;
+
     /**
-     *  Constructor.
+     *  Constructor.  The cabinet is read through a RandomAccessCabinetReader.
      *  @param file cabinet file
      */
     public CabinetMaker(RandomAccessFile file) {
-        pfcFile = file;
+        this(new RandomAccessCabinetReader(file));
+    }
+
+    /**
+     *  Constructor.
+     *  @param reader cabinet file reader
+     */
+    public CabinetMaker(CabinetReader reader) {
+        pfcReader = reader;
         cabinet = null;
+        threadCount = 1;
+        indexCache = null;
         progressPct = 0;
         progressBar = null;
         progressDialog = null;
@@ -75,6 +101,22 @@ public class CabinetMaker implements Runnable {
         progressDialog = dialog;
     }
 
+    /** Sets number of threads used to read cabinet items.  The default
+     *  is one, which reads all items on the thread calling run().
+     */
+    public void setThreadCount(int count) {
+        threadCount = Math.max(count, 1);
+    }
+
+    /** Sets IndexCache object.  If set, the run() method will read the
+     *  item table from the cache file when it matches the cabinet file,
+     *  and will save the item table to the cache file after reading the
+     *  cabinet file.
+     */
+    public void setIndexCache(IndexCache cache) {
+        indexCache = cache;
+    }
+
     /**
      *  Returns cabinet.
      */
@@ -105,79 +147,64 @@ public class CabinetMaker implements Runnable {
         try {
             // Create new Cabinet object.
             cabinet = new Cabinet();
+            cabinet.setReader(pfcReader);
 
             // Read first 8 bytes; should = AOLVM100.
-            pfcFile.seek(0);
+            byte[] id = new byte[8];
+            pfcReader.read(0L, id, 0, id.length);
             StringBuffer buf = new StringBuffer();
             for (int j = 0; j < 8; j++) {
-                buf.append((char)pfcFile.readByte());
+                buf.append((char)id[j]);
             }
             if (!buf.toString().equals(CABFILE_ID)) {
                 throw new CabinetException("Selected file is not a Filing Cabinet.");
             }
             
             // Find start of index
-            pfcFile.seek(16L);
-            int idxStart = IntUtil.reverseInt(pfcFile.readInt());
+            int idxStart = pfcReader.readInt(16L);
             cabinet.setIdxStart(idxStart);
 
             // Get index length
-            pfcFile.seek(idxStart + 4);
-            int idxLength = IntUtil.reverseInt(pfcFile.readInt());
+            int idxLength = pfcReader.readInt(idxStart + 4);
             cabinet.setIdxLength(idxLength);
 
             // Get index count
-            pfcFile.seek(idxStart + 8);
-            int idxCount = IntUtil.reverseInt(pfcFile.readInt());
+            int idxCount = pfcReader.readInt(idxStart + 8);
             cabinet.setIdxCount(idxCount);
 
             // Get start of cabinet
-            pfcFile.seek(idxStart + 16);
-            cabinet.setCabStart(IntUtil.reverseInt(pfcFile.readInt()));
-
-            // Go to first message index
-            int idxMsg0 = idxStart + 12;
-            int itemCount = 0;
-            ArrayList itemList = new ArrayList();
-
-            // Loop through all index entries.
-            for (int i = idxMsg0; i < (idxStart + 8 + idxLength); i += 4) {
-
-                // Get cabinet address for item.
-                pfcFile.seek(i);
-                int cabAddr = IntUtil.reverseInt(pfcFile.readInt());
-
-                // Create cabinet item.
-                CabinetItem item = new CabinetItem(pfcFile, cabAddr);
-                item.setIndex(itemCount++);
-                item.setAddress(cabAddr);
+            cabinet.setCabStart(pfcReader.readInt(idxStart + 16));
 
-                // Add item to array list.
-                itemList.add(item);
+            // Use item table from cache file if it matches cabinet.
+            ItemTable itemTable = null;
+            if (indexCache != null) {
+                itemTable = indexCache.read(pfcReader, cabinet);
+            }
 
-                // Set progress meter as percentage of index length.
-                progressPct = (int)((float)(i - idxStart - 8) / (float)idxLength * 100f);
+            if (itemTable == null) {
+                // Read entire index table in one pass.
+                idxTable = readIndexTable(idxStart, idxLength);
+                this.idxLength = idxLength;
 
-                // Check if thread interrupted.
-                if (Thread.interrupted()) {
-                    throw new CabinetException("Cabinet file read interrupted.");
-                }
+                // Read cabinet items for all index entries.
+                loadItems();
+                itemTable = items;
+                idxTable = null;
+                items = null;
 
-                // Set progress bar if available.
-                if ((progressBar != null) && 
-                    ((progressPct % 5) == 0)) {
-                    EventQueue.invokeLater(
-                        new Runnable() {
-                            public void run() {
-                                progressBar.setValue(progressPct);
-                            }
-                        });
+                // Save item table for next time.
+                if (indexCache != null) {
+                    indexCache.write(pfcReader, cabinet, itemTable);
                 }
             }
+            int itemCount = itemTable.size();
 
             // Set item count and item list in cabinet.
             cabinet.setItemCount(itemCount);
-            cabinet.setItemList(itemList);
+            cabinet.setItemTable(itemTable);
+
+            // Build child lists for folder tree and table.
+            cabinet.setFolderIndex(new FolderIndex(itemTable));
             progressPct = 100;
         }
         catch (IOException iox) {
@@ -206,4 +233,156 @@ public class CabinetMaker implements Runnable {
         } 
     }
 
+    /**
+     *  Reads all entries in the cabinet index table, and returns them as
+     *  an array of item addresses.  Entries start 12 bytes past the start
+     *  of the index, and end at the index length plus 8 bytes.
+     */
+    private int[] readIndexTable(int idxStart, int idxLength) 
+        throws IOException {
+        int count = (idxLength > 4) ? ((idxLength - 1) / 4) : 0;
+        int[] idxTable = new int[count];
+        pfcReader.readInts(idxStart + 12, idxTable, 0, count);
+        return idxTable;
+    }
+
+    /**
+     *  Reads cabinet items for all entries in the index table.  If more
+     *  than one thread is used, the entries are divided into ranges that
+     *  are claimed by worker threads.  Each item is stored at its index
+     *  position, so the item table is always in index order.
+     */
+    private void loadItems() throws IOException, CabinetException {
+        items = new ItemTable(pfcReader, idxTable.length);
+        nextEntry = 0;
+        entriesDone = 0;
+        cancelled = false;
+        loadException = null;
+
+        int workers = Math.min(threadCount, 
+            (idxTable.length + RANGE_SIZE - 1) / RANGE_SIZE);
+        if (workers <= 1) {
+            // Load all items on the current thread.
+            new ItemLoader().run();
+        }
+        else {
+            // Start worker threads, and wait for them to finish.
+            Thread[] threads = new Thread[workers];
+            for (int t = 0; t < workers; t++) {
+                threads[t] = new Thread(new ItemLoader(), "CabinetMaker-" + t);
+                threads[t].start();
+            }
+            try {
+                for (int t = 0; t < workers; t++) {
+                    threads[t].join();
+                }
+            }
+            catch (InterruptedException iex) {
+                // Stop all workers before returning.
+                cancelled = true;
+                for (int t = 0; t < workers; t++) {
+                    threads[t].interrupt();
+                }
+                for (int t = 0; t < workers; t++) {
+                    while (threads[t].isAlive()) {
+                        try { threads[t].join(); }
+                        catch (InterruptedException ex) {}
+                    }
+                }
+                throw new CabinetException("Cabinet file read interrupted.");
+            }
+        }
+
+        // Report first problem found by any loader.
+        if (loadException instanceof IOException) {
+            throw (IOException)loadException;
+        }
+        else if (loadException instanceof CabinetException) {
+            throw (CabinetException)loadException;
+        }
+        else if (loadException instanceof RuntimeException) {
+            throw (RuntimeException)loadException;
+        }
+    }
+
+    /**
+     *  Returns first entry of the next range of index entries to load, or
+     *  -1 if there are no more entries.
+     */
+    private synchronized int nextRange() {
+        if (cancelled || (nextEntry >= idxTable.length)) {
+            return -1;
+        }
+        int start = nextEntry;
+        nextEntry += RANGE_SIZE;
+        return start;
+    }
+
+    /**
+     *  Records the number of entries loaded, and updates the progress
+     *  meter as percentage of index length.
+     */
+    private synchronized void advance(int count) {
+        entriesDone += count;
+        int pct = (int)((float)(4 * entriesDone) / (float)idxLength * 100f);
+        if (pct != progressPct) {
+            progressPct = pct;
+            // Set progress bar if available.
+            if (progressBar != null) {
+                EventQueue.invokeLater(
+                    new Runnable() {
+                        public void run() {
+                            progressBar.setValue(progressPct);
+                        }
+                    });
+            }
+        }
+    }
+
+    /**
+     *  Saves the first exception thrown by a loader, and stops the others.
+     */
+    private synchronized void fail(Exception ex) {
+        if (loadException == null) {
+            loadException = ex;
+        }
+        cancelled = true;
+    }
+
+    /**
+     *  Loads ranges of index entries until none remain.  Each entry is
+     *  read from the cabinet file and stored in the item table.
+     */
+    private class ItemLoader implements Runnable {
+
+        public void run() {
+            try {
+                int start = nextRange();
+                while (start >= 0) {
+                    int end = Math.min(start + RANGE_SIZE, idxTable.length);
+                    for (int i = start; i < end; i++) {
+                        // Read cabinet item into table.
+                        items.readItem(i, idxTable[i]);
+
+                        // Check if thread interrupted.
+                        if (Thread.interrupted() || cancelled) {
+                            throw new CabinetException("Cabinet file read interrupted.");
+                        }
+                    }
+                    advance(end - start);
+                    start = nextRange();
+                }
+            }
+            catch (IOException iox) {
+                fail(iox);
+            }
+            catch (CabinetException cex) {
+                fail(cex);
+            }
+            catch (RuntimeException rex) {
+                fail(rex);
+            }
+        }
+    }
+
 }
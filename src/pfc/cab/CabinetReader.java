@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.IOException;
+
+/**
+ *  Generic interface to read bytes from a cabinet file.  All reads are
+ *  addressed by absolute byte position, so callers never need to seek.
+ *  Implementations must allow many threads to read at the same time, so
+ *  a cabinet may be browsed and exported at once.
+ *  A CabinetReader is usually created using a CabinetReaderFactory.
+ *
+ *  @author Ernie Yu
+ */
+public interface CabinetReader {
+
+    public static final int RANDOM_ACCESS = 1;
+    public static final int MAPPED = 2;
+
+    /** Returns length of cabinet file in bytes.
+     */
+    public long length() throws IOException;
+
+    /** Returns little-endian int value at the specified byte position.
+     */
+    public int readInt(long pos) throws IOException;
+
+    /** Reads count little-endian int values from the specified byte 
+     *  position into an array.
+     */
+    public void readInts(long pos, int[] dst, int off, int count) 
+        throws IOException;
+
+    /** Reads up to len bytes from the specified byte position into an
+     *  array.  Returns the number of bytes read, which is less than len
+     *  only if the end of file is reached.
+     */
+    public int read(long pos, byte[] b, int off, int len) throws IOException;
+
+    /** Closes cabinet file.
+     */
+    public void close() throws IOException;
+
+}
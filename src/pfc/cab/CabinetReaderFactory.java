@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ *  Class to create a CabinetReader object.
+ *  @author Ernie Yu
+ */
+public class CabinetReaderFactory {
+
+    private int type;
+
+    /** Constructor.
+     *  @param type factory type - see constants in CabinetReader interface
+     */
+    public CabinetReaderFactory(int type) {
+        this.type = type;
+    }
+
+    /** Returns a new CabinetReader object based on the factory type.  The
+     *  file is opened in read-only mode.  If the file cannot be mapped
+     *  into memory, a RandomAccessCabinetReader is returned instead.
+     */
+    public CabinetReader getReader(File pfcFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(pfcFile, "r");
+        if (type == CabinetReader.MAPPED) {
+            try {
+                return new MappedCabinetReader(file);
+            }
+            catch (IOException iox) {
+                // Fall back to random access reads.
+            }
+        }
+        return new RandomAccessCabinetReader(file);
+    }
+
+}
@@ -28,15 +28,23 @@ import javax.swing.table.*;
 /**
  *  Extends AbstractTableModel class to display folder items in a JTable
  *  object.  This class is contains a Cabinet and CabinetItem, which must
- *  be set to display data in the table.
+ *  be set to display data in the table.  The table values for all items
+ *  in the folder are split from the envelope labels when the folder is 
+ *  set.
  *  @author Ernie Yu
+ *  <br>17 Oct 2026 Keeps table values for current folder in arrays.
  */
 public class CabinetTableModel extends AbstractTableModel {
 
     private static final String TAB = "\011";
+    private static final int COLUMN_COUNT = 4;
+
+    // maximum label length displayed in table
+    private static final int LABEL_LENGTH = 80;
 
     private Cabinet cabinet;
     private CabinetItem folder;
+    private String[][] rows;
 
     /**
      *  Constructor.
@@ -44,6 +52,7 @@ public class CabinetTableModel extends AbstractTableModel {
     public CabinetTableModel() {
         cabinet = null;
         folder = null;
+        rows = new String[0][];
     }
 
     /**
@@ -53,6 +62,7 @@ public class CabinetTableModel extends AbstractTableModel {
     public void setCabinet(Cabinet cab) {
         cabinet = cab;
         folder = null;
+        rows = new String[0][];
         fireTableStructureChanged();
     }
 
@@ -62,8 +72,37 @@ public class CabinetTableModel extends AbstractTableModel {
      */
     public void setFolder(CabinetItem folder) {
         this.folder = folder;
+        loadRows();
         fireTableStructureChanged();
     }
+
+    /**
+     *  Splits the envelope labels of all items in the current folder into
+     *  table values.  Only cabinet envelopes that are NOT folders count as
+     *  rows.
+     */
+    private void loadRows() {
+        if ((cabinet == null) || (folder == null)) { 
+            rows = new String[0][];
+            return;
+        }
+        ItemTable table = cabinet.getItemTable();
+        FolderIndex folderIndex = cabinet.getFolderIndex();
+        int folderIdx = folder.getIndex();
+        rows = new String[folderIndex.getLeafCount(folderIdx)][];
+        for (int row = 0; row < rows.length; row++) {
+            int idx = folderIndex.getLeaf(folderIdx, row);
+            String label = table.getLabel(idx);
+            if (label.length() > LABEL_LENGTH) {
+                label = label.substring(0, LABEL_LENGTH);
+            }
+            rows[row] = new String[COLUMN_COUNT];
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                rows[row][column] = getEnvelopeField(idx, table.getType(idx),
+                    label, column);
+            }
+        }
+    }
     
     /**
      *  Returns the number of rows in the table.  Only cabinet envelopes
@@ -71,28 +110,14 @@ public class CabinetTableModel extends AbstractTableModel {
      *  children.
      */
     public int getRowCount() {
-        int count = 0;
-        if ((cabinet == null) || (folder == null)) { return count; }
-        // Get pointer to first child.
-        int idx = folder.getChild();
-        // Loop through all children.
-        while (idx != 0) {
-            // Get tree element; count if NOT a folder.
-            CabinetItem item = cabinet.getCabinetItem(idx);
-            if (!item.isFolder()) {
-                count++;
-            }
-            // Get pointer to next element.
-            idx = item.getNext();
-        }
-        return count;
+        return rows.length;
     }
 
     /**
      *  Returns the number of columns in the table.
      */
     public int getColumnCount() {
-        return 4;
+        return COLUMN_COUNT;
     }
 
     /**
@@ -135,45 +160,24 @@ public class CabinetTableModel extends AbstractTableModel {
      *  Returns null if no object is available.
      */
     public Object getValueAt(int row, int column) {
-        int count = -1;
-        if ((cabinet == null) || (folder == null)) { return null; }
-        // Get pointer to first child.
-        int idx = folder.getChild();
-        // Loop through all children.
-        while (idx != 0) {
-            // Get tree element; count if NOT a folder.
-            CabinetItem item = cabinet.getCabinetItem(idx);
-            if (!item.isFolder()) {
-                count++;
-                if (count == row) {
-                    String result = getEnvelopeField(item, column);
-                    return result;
-                }
-            }
-            // Get pointer to next element.
-            idx = item.getNext();
+        if ((row < 0) || (row >= rows.length) ||
+            (column < 0) || (column >= COLUMN_COUNT)) { 
+            return null;        // return null if not found
         }
-        return null;            // return null if not found
+        return rows[row][column];
     }
 
     /**
-     *  Parses envelope content, and returns the field for the specified
+     *  Parses envelope label, and returns the field for the specified
      *  table column.  The columns defined below.
      *  For messages: 0 = date, 1 = from/to, 2 = subject, 3 = data pointer.
      *  For files: 0 = file, 1 = description, 2 = size, 3 = data pointer.
      *  For addresses: 1 = name, 2 = email address, 3 = data pointer.
      */
-    private String getEnvelopeField(CabinetItem item, int column) {
+    private String getEnvelopeField(int index, int itemType, String label,
+        int column) {
         String result = null;
-        StringBuffer buffer = new StringBuffer();
-        byte[] content = item.getContent();
-        int itemType = item.getType();
-
-        // Get envelope label.
-        for (int i = 18; i < 98; i++) {
-            if (content[i] == '\000') break;
-            buffer.append((char)content[i]);
-        }
+        StringBuffer buffer = new StringBuffer(label);
 
         if ((itemType == CabinetItem.FAVE_ENVELOPE) ||
             (itemType == CabinetItem.GROUP_ENVELOPE)) {
@@ -183,7 +187,7 @@ public class CabinetTableModel extends AbstractTableModel {
                         result = buffer.toString();
                         break;
                     case 3:
-                        result = String.valueOf(item.getIndex());
+                        result = String.valueOf(index);
                         break;
                     default:
                         // Return null.
@@ -204,7 +208,7 @@ public class CabinetTableModel extends AbstractTableModel {
                         result = buffer.substring(tab1 + 1, buffer.length());
                         break;
                     case 3:
-                        result = String.valueOf(item.getIndex());
+                        result = String.valueOf(index);
                         break;
                     default:
                         // Return null.
@@ -230,7 +234,7 @@ public class CabinetTableModel extends AbstractTableModel {
                         result = buffer.substring(tab2 + 1, buffer.length());
                         break;
                     case 3:
-                        result = String.valueOf(item.getIndex());
+                        result = String.valueOf(index);
                         break;
                     default:
                         // Return null.
@@ -34,6 +34,8 @@ import javax.swing.event.*;
  *
  *  @author Ernie Yu
  *  <br>02 Mar 2003 Calls Cabinet.getCabinetItem() method to retrieve items.
+ *  <br>17 Oct 2026 Reads item fields directly from the ItemTable.
+ *  <br>17 Oct 2026 Gets child folders from the cabinet FolderIndex.
  */
 public class CabinetTreeModel implements TreeModel {
 
@@ -59,27 +61,17 @@ public class CabinetTreeModel implements TreeModel {
      *  array.  Returns null only if parent has no children.
      */
     public Object getChild(Object parent, int index) {
-        CabinetItem node = null;
-        int count = -1;
-        // Get pointer to first child.
-        int idx = ((CabinetItem)parent).getChild();
-        // Loop through all children.
-        while (idx != 0) {
-            // Get tree element; count if it is folder.
-            CabinetItem item = cabinet.getCabinetItem(idx);
-            if (item.isFolder()) {
-                count++;
-                if (count == index) {
-                    return item;        // return item found
-                }
-                else {
-                    node = item;        // save last folder found
-                }
-            }
-            // Get pointer to next element.
-            idx = item.getNext();
+        FolderIndex folderIndex = cabinet.getFolderIndex();
+        int parentIdx = ((CabinetItem)parent).getIndex();
+        int count = folderIndex.getFolderCount(parentIdx);
+        if (count == 0) {
+            return null;
         }
-        return node;    // return last folder found, or null.
+        // Return item found, or last folder if index is out of range.
+        if ((index < 0) || (index >= count)) {
+            index = count - 1;
+        }
+        return cabinet.getCabinetItem(folderIndex.getFolder(parentIdx, index));
     }
 
     /**
@@ -87,20 +79,8 @@ public class CabinetTreeModel implements TreeModel {
      *  count as tree elements.  Returns 0 if parent has no children.
      */
     public int getChildCount(Object parent) {
-        int count = 0;
-        // Get pointer to first child.
-        int idx = ((CabinetItem)parent).getChild();
-        // Loop through all children.
-        while (idx != 0) {
-            // Get tree element; count if it is folder.
-            CabinetItem item = cabinet.getCabinetItem(idx);
-            if (item.isFolder()) {
-                count++;
-            }
-            // Get pointer to next element.
-            idx = item.getNext();
-        }
-        return count;
+        int parentIdx = ((CabinetItem)parent).getIndex();
+        return cabinet.getFolderIndex().getFolderCount(parentIdx);
     }
 
     /**
@@ -109,22 +89,9 @@ public class CabinetTreeModel implements TreeModel {
      */
     public int getIndexOfChild(Object parent, Object child) {
         if ((parent == null) || (child == null)) { return -1; }
+        int parentIdx = ((CabinetItem)parent).getIndex();
         int childIdx = ((CabinetItem)child).getIndex();
-        int count = -1;
-        // Get pointer to first child.
-        int idx = ((CabinetItem)parent).getChild();
-        // Loop through all children.
-        while (idx != 0) {
-            // Get tree element; count if it is folder.
-            CabinetItem item = cabinet.getCabinetItem(idx);
-            if (item.isFolder()) {
-                count++;
-                if (item.getIndex() == childIdx) { return count; }
-            }
-            // Get pointer to next element.
-            idx = item.getNext();
-        }
-        return -1;      // Child not found, so return -1.
+        return cabinet.getFolderIndex().getIndexOfFolder(parentIdx, childIdx);
     }
 
     /**
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.text.ParseException;
+import java.util.*;
+
+/**
+ *  Selects mail envelopes with a filter expression.  An expression is a
+ *  list of terms separated by spaces.  A message must match all terms,
+ *  unless groups of terms are separated by the word OR, in which case it
+ *  must match all terms of any group.  A term starting with a minus sign
+ *  must not match.  The terms are: <BR>
+ *  from:text, to:text, subject:text - field contains the text <BR>
+ *  date:2004, date:2004-07, date:2004-07-04 - date is in the year, month
+ *  or day <BR>
+ *  since:2004-07-04, before:2004-07-04 - date is on or after, or before,
+ *  the day <BR>
+ *  is:sent, is:received, is:seen, is:unseen - envelope flags are set <BR>
+ *  Text is matched without regard to case, and may be quoted to include
+ *  spaces, as in subject:"hello world".
+ *  <p>
+ *  Terms are checked against the fields of the envelope label first,
+ *  as shown in the cabinet table, and the envelope flags.  The label
+ *  holds the date and subject, and the sender of received mail or the
+ *  recipient of sent mail.  The date and flags are always taken from the
+ *  envelope.  As the label has a fixed size, long subjects and addresses
+ *  are cut off, so text found in the label matches, but text not found
+ *  is looked for in the mail message.  The mail message is read and
+ *  parsed only if the envelope cannot decide the expression.  So a
+ *  filter on dates and flags reads few messages.  Once created, a filter
+ *  may be used by several threads at the same time.
+ *
+ *  @author Ernie Yu
+ */
+public class EnvelopeFilter {
+
+    // term kinds
+    private static final int FROM = 0;
+    private static final int TO = 1;
+    private static final int SUBJECT = 2;
+    private static final int DATE = 3;
+    private static final int SINCE = 4;
+    private static final int BEFORE = 5;
+    private static final int SENT = 6;
+    private static final int RECEIVED = 7;
+    private static final int SEEN = 8;
+    private static final int UNSEEN = 9;
+
+    private static final String[] TEXT_NAMES = { "from", "to", "subject" };
+    private static final String[] DATE_NAMES = { "date", "since", "before" };
+    private static final String[] FLAG_NAMES =
+        { "sent", "received", "seen", "unseen" };
+
+    // results of a term or expression
+    static final int NO = 0;
+    static final int YES = 1;
+    static final int MAYBE = 2;
+
+    private static final char TAB = '\t';
+
+    private String expression;
+    private Term[][] groups;
+
+    /**
+     *  Constructor.  An empty expression selects all mail envelopes.
+     *  @param expression filter expression
+     *  @throws ParseException if the expression is not valid
+     */
+    public EnvelopeFilter(String expression) throws ParseException {
+        this.expression = expression;
+        ArrayList groupList = new ArrayList();
+        ArrayList termList = new ArrayList();
+        int length = expression.length();
+        int pos = 0;
+        while (pos < length) {
+            if (Character.isWhitespace(expression.charAt(pos))) {
+                pos++;
+                continue;
+            }
+
+            // Read word up to the next space outside quotes.
+            int start = pos;
+            boolean quoted = false;
+            StringBuffer buffer = new StringBuffer();
+            while ((pos < length) && (quoted ||
+                !Character.isWhitespace(expression.charAt(pos)))) {
+                char chr = expression.charAt(pos++);
+                if (chr == '"') {
+                    quoted = !quoted;
+                } else {
+                    buffer.append(chr);
+                }
+            }
+            if (quoted) {
+                throw new ParseException("Missing quote", start);
+            }
+
+            String word = buffer.toString();
+            if (word.equals("OR") && (expression.charAt(start) != '"')) {
+                if (termList.isEmpty()) {
+                    throw new ParseException("Missing term before OR", start);
+                }
+                groupList.add(termList.toArray(new Term[termList.size()]));
+                termList.clear();
+            } else {
+                termList.add(parseTerm(word, start));
+            }
+        }
+        if (!termList.isEmpty()) {
+            groupList.add(termList.toArray(new Term[termList.size()]));
+        } else if (!groupList.isEmpty()) {
+            throw new ParseException("Missing term after OR", length);
+        }
+        groups = (Term[][])groupList.toArray(new Term[groupList.size()][]);
+    }
+
+    /**
+     *  Returns a term for the specified word.
+     *  @param offset position of word in expression
+     */
+    private static Term parseTerm(String word, int offset)
+        throws ParseException {
+        Term term = new Term();
+        if (word.startsWith("-")) {
+            term.negated = true;
+            word = word.substring(1);
+            offset++;
+        }
+        int colon = word.indexOf(':');
+        if (colon <= 0) {
+            throw new ParseException("Missing field name: " + word, offset);
+        }
+        String name = word.substring(0, colon).toLowerCase();
+        String value = word.substring(colon + 1);
+        int valueOffset = offset + colon + 1;
+
+        if (name.equals("is")) {
+            term.kind = findName(FLAG_NAMES, value.toLowerCase(), SENT);
+            if (term.kind < 0) {
+                throw new ParseException("Unknown flag: " + value,
+                    valueOffset);
+            }
+        }
+        else if ((term.kind = findName(TEXT_NAMES, name, FROM)) >= 0) {
+            if (value.length() == 0) {
+                throw new ParseException("Missing text: " + word, offset);
+            }
+            term.text = value.toLowerCase();
+        }
+        else if ((term.kind = findName(DATE_NAMES, name, DATE)) >= 0) {
+            parseDate(value, valueOffset, term);
+        }
+        else {
+            throw new ParseException("Unknown field: " + name, offset);
+        }
+        return term;
+    }
+
+    /**
+     *  Returns the first kind plus the position of name in the list, or
+     *  -1 if the list does not hold the name.
+     */
+    private static int findName(String[] names, String name, int firstKind) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return firstKind + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *  Sets the start and end time of the year, month or day in a date
+     *  of the form yyyy, yyyy-mm or yyyy-mm-dd.  The times are in the
+     *  local time zone, as are envelope dates.
+     *  @param offset position of date in expression
+     */
+    private static void parseDate(String value, int offset, Term term)
+        throws ParseException {
+        String[] fields = value.split("-", -1);
+        int[] numbers = { 1, 1, 1 };
+        if (fields.length > numbers.length) {
+            throw new ParseException("Invalid date: " + value, offset);
+        }
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                numbers[i] = Integer.parseInt(fields[i]);
+            }
+            Calendar calendar = new GregorianCalendar();
+            calendar.setLenient(false);
+            calendar.clear();
+            calendar.set(numbers[0], numbers[1] - 1, numbers[2]);
+            term.start = calendar.getTime().getTime();
+            int[] units = { Calendar.YEAR, Calendar.MONTH, Calendar.DATE };
+            calendar.add(units[fields.length - 1], 1);
+            term.end = calendar.getTime().getTime();
+        }
+        catch (IllegalArgumentException iax) {
+            // Also catches NumberFormatException.
+            throw new ParseException("Invalid date: " + value, offset);
+        }
+    }
+
+    /**
+     *  Returns true if the item is a mail envelope that matches the
+     *  filter.  The mail message is read from the cabinet only if the
+     *  envelope alone cannot decide.
+     *  @param cabinet cabinet holding the item
+     *  @param item cabinet item to check
+     */
+    public boolean accept(Cabinet cabinet, CabinetItem item) {
+        return (getDataItem(cabinet, item) != null);
+    }
+
+    /**
+     *  Returns the data item of a mail envelope that matches the filter,
+     *  or null if the item does not match.  If the mail message was read
+     *  to decide, the data item returned holds the content already read,
+     *  so the message is not read again when it is exported.
+     *  @param cabinet cabinet holding the item
+     *  @param item cabinet item to check
+     */
+    public CabinetItem getDataItem(Cabinet cabinet, CabinetItem item) {
+        if (item.getType() != CabinetItem.MAIL_ENVELOPE) {
+            return null;
+        }
+        Envelope envelope = new Envelope(item);
+        int result = evaluate(envelope);
+        CabinetItem dataItem = cabinet.getCabinetItem(item.getData());
+        if (result == MAYBE) {
+            // Parse message, and check the remaining terms.
+            byte[] content = (item.getData() != 0) ?
+                dataItem.getContent() : null;
+            if (content != null) {
+                envelope.message = new MailMessage(content, true);
+                dataItem = new ReadItem(cabinet.getItemTable(),
+                    item.getData(), content);
+            }
+            envelope.complete = true;
+            result = evaluate(envelope);
+        }
+        return (result == YES) ? dataItem : null;
+    }
+
+    /**
+     *  Returns the result of the expression from the envelope alone: YES
+     *  or NO if the envelope decides, or MAYBE if the mail message must
+     *  be read.  Items that are not mail envelopes return NO.
+     */
+    int check(CabinetItem item) {
+        if (item.getType() != CabinetItem.MAIL_ENVELOPE) {
+            return NO;
+        }
+        return evaluate(new Envelope(item));
+    }
+
+    /**
+     *  Returns the result of the expression for the envelope.
+     */
+    private int evaluate(Envelope envelope) {
+        if (groups.length == 0) {
+            return YES;
+        }
+        int result = NO;
+        for (int g = 0; (g < groups.length) && (result != YES); g++) {
+            int groupResult = YES;
+            Term[] terms = groups[g];
+            for (int t = 0; (t < terms.length) && (groupResult != NO); t++) {
+                int termResult = evaluate(terms[t], envelope);
+                if (terms[t].negated && (termResult != MAYBE)) {
+                    termResult = (termResult == YES) ? NO : YES;
+                }
+                if ((termResult == NO) || (termResult == MAYBE)) {
+                    groupResult = termResult;
+                }
+            }
+            if ((groupResult == YES) || (groupResult == MAYBE)) {
+                result = groupResult;
+            }
+        }
+        return result;
+    }
+
+    /**
+     *  Returns the result of a term for the envelope.  Returns MAYBE if
+     *  the term needs the mail message, and the message has not been
+     *  read.
+     */
+    private int evaluate(Term term, Envelope envelope) {
+        switch (term.kind) {
+            case FROM:
+                return match(envelope.outgoing ? null : envelope.address,
+                    term, envelope);
+            case TO:
+                return match(envelope.outgoing ? envelope.address : null,
+                    term, envelope);
+            case SUBJECT:
+                return match(envelope.subject, term, envelope);
+            case DATE:
+            case SINCE:
+            case BEFORE:
+                long date = envelope.getDateMillis();
+                if (date == AolDateParser.INVALID) {
+                    return envelope.complete ? NO : MAYBE;
+                }
+                boolean inRange = (term.kind == DATE) ?
+                    ((date >= term.start) && (date < term.end)) :
+                    ((date >= term.start) == (term.kind == SINCE));
+                return inRange ? YES : NO;
+            case SENT:
+                return envelope.outgoing ? YES : NO;
+            case RECEIVED:
+                return envelope.outgoing ? NO : YES;
+            case SEEN:
+                return ((envelope.flags & CabinetItem.MAIL_SEEN) != 0) ?
+                    YES : NO;
+            default:
+                return ((envelope.flags & CabinetItem.MAIL_SEEN) != 0) ?
+                    NO : YES;
+        }
+    }
+
+    /**
+     *  Returns the result of a text term.  Returns YES if the envelope
+     *  field contains the text.  Otherwise the field of the mail message
+     *  is checked, as the envelope field may be cut off or missing.
+     */
+    private static int match(String envelopeField, Term term,
+        Envelope envelope) {
+        if ((envelopeField != null) &&
+            (contains(envelopeField, term.text) == YES)) {
+            return YES;
+        } else if (!envelope.complete) {
+            return MAYBE;
+        }
+        MailMessage message = envelope.message;
+        if (message == null) {
+            return NO;
+        }
+        switch (term.kind) {
+            case FROM:
+                return contains(message.getFrom(), term.text);
+            case TO:
+                return contains(message.getTo(), term.text);
+            default:
+                return contains(message.getSubject(), term.text);
+        }
+    }
+
+    /**
+     *  Returns YES if the field contains the lower case text.
+     */
+    private static int contains(String field, String text) {
+        return ((field != null) &&
+            (field.toLowerCase().indexOf(text) >= 0)) ? YES : NO;
+    }
+
+    /**
+     *  Returns the filter expression.
+     */
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     *  Data item whose content was already read by the filter.
+     */
+    private static class ReadItem extends CabinetItem {
+
+        private byte[] content;
+
+        ReadItem(ItemTable table, int index, byte[] content) {
+            super(table, index);
+            this.content = content;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+
+    /**
+     *  One term of the expression.
+     */
+    private static class Term {
+        int kind;
+        boolean negated;
+        String text;
+        long start;
+        long end;
+    }
+
+    /**
+     *  Fields of a mail envelope, split from its label as in the cabinet
+     *  table, and the mail message once it is read.
+     */
+    private static class Envelope {
+
+        String date;
+        String address;
+        String subject;
+        byte flags;
+        boolean outgoing;
+        MailMessage message;
+        boolean complete;
+
+        private boolean dateParsed;
+        private long dateMillis;
+
+        Envelope(CabinetItem item) {
+            String label = item.toString();
+            int tab1 = label.indexOf(TAB);
+            int tab2 = (tab1 >= 0) ? label.indexOf(TAB, tab1 + 1) : -1;
+            if (tab2 >= 0) {
+                date = label.substring(0, tab1);
+                address = label.substring(tab1 + 1, tab2);
+                subject = label.substring(tab2 + 1);
+            }
+            flags = item.getFlags();
+            outgoing = item.isOutgoing();
+            message = null;
+            complete = false;
+            dateParsed = false;
+        }
+
+        /**
+         *  Returns date from the envelope, or from the message if the
+         *  envelope date cannot be parsed and the message has been read.
+         */
+        long getDateMillis() {
+            if (!dateParsed) {
+                dateMillis = (date != null) ?
+                    AolDateParser.parse(date) : AolDateParser.INVALID;
+                dateParsed = true;
+            }
+            if ((dateMillis == AolDateParser.INVALID) && (message != null)) {
+                return message.getDateMillis();
+            }
+            return dateMillis;
+        }
+    }
+
+}
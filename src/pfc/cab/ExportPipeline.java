@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.IOException;
+import pfc.export.*;
+
+/**
+ *  Exports the children of a cabinet folder using several threads.  The
+ *  folder tree is walked first to list the export events in order: open
+ *  folder, export item, and close folder.  Worker threads then prepare
+ *  the items with ParallelExporter.prepare(), while the calling thread
+ *  writes the prepared items and opens and closes folders in the listed
+ *  order.  Workers may run only a limited number of events ahead of the
+ *  writer, so few prepared items are held in memory at one time.
+ *  <p>Envelopes rejected by the filter from their labels alone are left
+ *  out of the list, so their data items are never read.  Envelopes that
+ *  need the mail message to decide are listed for the workers, which
+ *  finish the filter check on the message they read.
+ *
+ *  @author Ernie Yu
+ */
+class ExportPipeline {
+
+    // event kinds
+    private static final int OPEN_FOLDER = 0;
+    private static final int EXPORT_ITEM = 1;
+    private static final int CLOSE_FOLDER = 2;
+    private static final int FILTER_ITEM = 3;
+
+    // prepared item for an envelope rejected by the filter
+    private static final Object SKIPPED = new Object();
+
+    // number of events each worker may run ahead of the writer
+    private static final int EVENTS_PER_THREAD = 16;
+
+    private Cabinet cabinet;
+    private ParallelExporter exporter;
+    private int threadCount;
+    private EnvelopeFilter filter;
+
+    // Export events in order.
+    private int[] kinds;
+    private int[] items;
+    private int eventCount;
+
+    // Shared state for workers and writer.  Prepared items are kept in
+    // slots indexed by event number modulo the window size.
+    private int window;
+    private Object[] prepared;
+    private Throwable[] failures;
+    private boolean[] ready;
+    private int nextEvent;
+    private int written;
+    private boolean cancelled;
+
+    /**
+     *  Constructor.
+     *  @param cabinet cabinet holding items to export
+     *  @param exporter exporter for items
+     *  @param threadCount number of worker threads
+     *  @param filter filter to select envelopes, or null for all
+     */
+    ExportPipeline(Cabinet cabinet, ParallelExporter exporter,
+        int threadCount, EnvelopeFilter filter) {
+        this.cabinet = cabinet;
+        this.exporter = exporter;
+        this.threadCount = Math.max(threadCount, 1);
+        this.filter = filter;
+        kinds = new int[16];
+        items = new int[16];
+        eventCount = 0;
+    }
+
+    /**
+     *  Exports all child items of the specified folder, and all of its
+     *  sub-folders.  Returns the number of items exported.  The exporter
+     *  must already be open.
+     */
+    int export(CabinetItem folder) throws IOException, ExportException {
+        // List export events in the same order as a serial export.
+        addChildren(folder);
+
+        window = threadCount * EVENTS_PER_THREAD;
+        prepared = new Object[window];
+        failures = new Throwable[window];
+        ready = new boolean[window];
+        nextEvent = 0;
+        written = 0;
+        cancelled = false;
+
+        // Start worker threads.
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(new Worker(), "ExportPipeline-" + t);
+            threads[t].start();
+        }
+
+        int exportCount = 0;
+        int openCount = 0;
+        try {
+            // Write events in order.
+            for (int e = 0; e < eventCount; e++) {
+                switch (kinds[e]) {
+                    case OPEN_FOLDER:
+                        exporter.openFolder(cabinet.getCabinetItem(items[e]));
+                        openCount++;
+                        break;
+                    case CLOSE_FOLDER:
+                        openCount--;
+                        exporter.closeFolder();
+                        break;
+                    default:
+                        Object item = takePrepared(e);
+                        if (item != SKIPPED) {
+                            exporter.write(item);
+                            exportCount++;
+                        }
+                }
+                advance(e + 1);
+            }
+        }
+        finally {
+            // Close folders left open by an error, and stop workers.
+            for (int i = 0; i < openCount; i++) {
+                exporter.closeFolder();
+            }
+            stopWorkers(threads);
+        }
+        return exportCount;
+    }
+
+    /**
+     *  Adds events for all child items of the specified parent.  This
+     *  method will recurse through all sub-folders of the parent.
+     */
+    private void addChildren(CabinetItem parent) {
+        addEvent(OPEN_FOLDER, parent.getIndex());
+        int idx = parent.getChild();
+        while (idx != 0) {
+            CabinetItem child = cabinet.getCabinetItem(idx);
+            if (child.isFolder()) {
+                addChildren(child);
+            }
+            else if (exporter.isExportable(child)) {
+                // Check filter on envelope, leaving MAYBE to the workers.
+                int result = (filter == null) ?
+                    EnvelopeFilter.YES : filter.check(child);
+                if (result == EnvelopeFilter.YES) {
+                    addEvent(EXPORT_ITEM, idx);
+                }
+                else if (result == EnvelopeFilter.MAYBE) {
+                    addEvent(FILTER_ITEM, idx);
+                }
+            }
+            idx = child.getNext();
+        }
+        addEvent(CLOSE_FOLDER, parent.getIndex());
+    }
+
+    /**
+     *  Adds an export event for the item with the specified index.
+     */
+    private void addEvent(int kind, int index) {
+        if (eventCount == kinds.length) {
+            kinds = grow(kinds);
+            items = grow(items);
+        }
+        kinds[eventCount] = kind;
+        items[eventCount] = index;
+        eventCount++;
+    }
+
+    /**
+     *  Waits for the specified event to be prepared, and returns the
+     *  prepared item.  Any exception thrown while preparing the item is
+     *  thrown here.
+     */
+    private synchronized Object takePrepared(int event)
+        throws IOException, ExportException {
+        int slot = event % window;
+        while (!ready[slot]) {
+            try { wait(); }
+            catch (InterruptedException iex) {
+                throw new ExportException("Export interrupted.");
+            }
+        }
+        Object item = prepared[slot];
+        Throwable failure = failures[slot];
+        prepared[slot] = null;
+        failures[slot] = null;
+        ready[slot] = false;
+
+        if (failure instanceof IOException) {
+            throw (IOException)failure;
+        }
+        else if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        }
+        else if (failure instanceof Error) {
+            throw (Error)failure;
+        }
+        return item;
+    }
+
+    /**
+     *  Records the number of events written, so workers may claim more
+     *  events.
+     */
+    private synchronized void advance(int count) {
+        written = count;
+        notifyAll();
+    }
+
+    /**
+     *  Returns the next event to prepare, waiting until it is within the
+     *  window.  Returns -1 if there are no more items, or the export has
+     *  stopped.
+     */
+    private synchronized int nextItem() throws InterruptedException {
+        while (!cancelled) {
+            while ((nextEvent < eventCount) &&
+                   (kinds[nextEvent] != EXPORT_ITEM) &&
+                   (kinds[nextEvent] != FILTER_ITEM)) {
+                nextEvent++;
+            }
+            if (nextEvent >= eventCount) {
+                return -1;
+            }
+            if (nextEvent < written + window) {
+                return nextEvent++;
+            }
+            wait();
+        }
+        return -1;
+    }
+
+    /**
+     *  Saves prepared item or exception for the specified event, and
+     *  wakes the writer.
+     */
+    private synchronized void putPrepared(int event, Object item,
+        Throwable failure) {
+        int slot = event % window;
+        prepared[slot] = item;
+        failures[slot] = failure;
+        ready[slot] = true;
+        notifyAll();
+    }
+
+    /**
+     *  Stops all workers, and waits for them to finish.
+     */
+    private void stopWorkers(Thread[] threads) {
+        synchronized (this) {
+            cancelled = true;
+            notifyAll();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            while (threads[t].isAlive()) {
+                try { threads[t].join(); }
+                catch (InterruptedException iex) {}
+            }
+        }
+    }
+
+    /**
+     *  Returns a new array twice the size of the specified array, holding
+     *  the same values.
+     */
+    private static int[] grow(int[] array) {
+        int[] newArray = new int[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    /**
+     *  Prepares items until none remain.  Each item is read from the
+     *  cabinet file and prepared by the exporter.  Items that need the
+     *  mail message for the filter are checked first, and are SKIPPED if
+     *  not selected.
+     */
+    private class Worker implements Runnable {
+
+        public void run() {
+            try {
+                int event = nextItem();
+                while (event >= 0) {
+                    Object item = null;
+                    Throwable failure = null;
+                    try {
+                        CabinetItem envelope =
+                            cabinet.getCabinetItem(items[event]);
+                        CabinetItem dataItem;
+                        if (kinds[event] == FILTER_ITEM) {
+                            dataItem = filter.getDataItem(cabinet, envelope);
+                        }
+                        else {
+                            dataItem =
+                                cabinet.getCabinetItem(envelope.getData());
+                        }
+                        item = (dataItem != null) ?
+                            exporter.prepare(envelope, dataItem) : SKIPPED;
+                    }
+                    catch (IOException iox) {
+                        failure = iox;
+                    }
+                    catch (RuntimeException rex) {
+                        failure = rex;
+                    }
+                    catch (Error err) {
+                        failure = err;
+                    }
+                    putPrepared(event, item, failure);
+                    event = nextItem();
+                }
+            }
+            catch (InterruptedException iex) {
+                // Export stopped.
+            }
+            finally {
+                // End idle inflaters before the thread finishes.
+                InflaterPool.clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+/**
+ *  Holds the child lists of all envelopes in a cabinet.  In the cabinet
+ *  file, the children of an envelope form a linked list of next pointers.
+ *  FolderIndex walks every list once, and keeps the sub-folders and the
+ *  other children of each envelope in separate int arrays, so children
+ *  can be found by position without walking the list again.  The arrays
+ *  are packed: the children of entry i are stored from start[i] up to
+ *  start[i + 1].
+ *
+ *  @author Ernie Yu
+ */
+public class FolderIndex {
+
+    private int size;
+    private int[] folderStart;      // start of sub-folders for each entry
+    private int[] folders;          // sub-folder indexes
+    private int[] folderPos;        // position of folder in parent list
+    private int[] leafStart;        // start of leaf items for each entry
+    private int[] leaves;           // leaf item indexes
+
+    /**
+     *  Constructor.  Builds child lists for all folders in the table.  The
+     *  child pointers of other entries are ignored.  An entry is added to
+     *  the first list that reaches it, so lists with cycles or shared
+     *  entries in a damaged cabinet are cut short.
+     *  @param table cabinet item table
+     */
+    public FolderIndex(ItemTable table) {
+        size = table.size();
+        folderStart = new int[size + 1];
+        folderPos = new int[size];
+        leafStart = new int[size + 1];
+        folders = new int[16];
+        leaves = new int[16];
+        boolean[] listed = new boolean[size];
+        int folderCount = 0;
+        int leafCount = 0;
+        for (int i = 0; i < size; i++) {
+            folderPos[i] = -1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            folderStart[i] = folderCount;
+            leafStart[i] = leafCount;
+            // Walk list of children.  Only folders have children.
+            int idx = table.isFolder(i) ? table.getChild(i) : 0;
+            while ((idx > 0) && (idx < size) && !listed[idx]) {
+                listed[idx] = true;
+                if (table.isFolder(idx)) {
+                    if (folderCount == folders.length) {
+                        folders = grow(folders);
+                    }
+                    folderPos[idx] = folderCount - folderStart[i];
+                    folders[folderCount++] = idx;
+                }
+                else {
+                    if (leafCount == leaves.length) {
+                        leaves = grow(leaves);
+                    }
+                    leaves[leafCount++] = idx;
+                }
+                idx = table.getNext(idx);
+            }
+        }
+        folderStart[size] = folderCount;
+        leafStart[size] = leafCount;
+    }
+
+    /** Returns number of sub-folders of the specified entry.
+     */
+    public int getFolderCount(int index) {
+        return folderStart[index + 1] - folderStart[index];
+    }
+
+    /** Returns entry index of the sub-folder at the specified position in
+     *  the parent's list of sub-folders.
+     */
+    public int getFolder(int index, int pos) {
+        return folders[folderStart[index] + pos];
+    }
+
+    /** Returns position of the child in the parent's list of sub-folders,
+     *  or -1 if the child is not a sub-folder of the parent.
+     */
+    public int getIndexOfFolder(int index, int child) {
+        if ((child < 0) || (child >= size)) { return -1; }
+        int pos = folderPos[child];
+        if ((pos >= 0) && (pos < getFolderCount(index)) &&
+            (folders[folderStart[index] + pos] == child)) {
+            return pos;
+        }
+        return -1;
+    }
+
+    /** Returns number of children of the specified entry that are not
+     *  folders.
+     */
+    public int getLeafCount(int index) {
+        return leafStart[index + 1] - leafStart[index];
+    }
+
+    /** Returns entry index of the leaf item at the specified position in
+     *  the parent's list of leaf items.
+     */
+    public int getLeaf(int index, int pos) {
+        return leaves[leafStart[index] + pos];
+    }
+
+    /**
+     *  Returns a new array twice the size of the specified array, holding
+     *  the same values.
+     */
+    private static int[] grow(int[] array) {
+        int[] newArray = new int[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+}
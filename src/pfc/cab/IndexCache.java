@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ *  Represents the index cache file for a cabinet.  The cache file holds
+ *  the decoded item table and envelope labels, so a cabinet that has not
+ *  changed can be reopened without reading its records.  The file is
+ *  named &lt;cabinet&gt;.pfcidx and is kept in the cabinet directory.  It
+ *  is keyed by the cabinet file size, modification time, and a checksum
+ *  of the cabinet and index headers; if any of these differ, the cache is
+ *  ignored and the cabinet is read in full.
+ *
+ *  @author Ernie Yu
+ */
+public class IndexCache {
+
+    public static final String CACHE_EXT = ".pfcidx";
+
+    private static final byte[] CACHE_ID =
+        { 'P', 'F', 'C', 'I', 'D', 'X', '0', '2' };
+    private static final int HEADER_SIZE = 48;
+    private static final int ROW_SIZE = 35;
+    private static final int CHECK_LENGTH = 512;
+
+    private File pfcFile;
+    private File cacheFile;
+
+    /** Creates a new instance of IndexCache.
+     *  @param pfcFile cabinet file
+     */
+    public IndexCache(File pfcFile) {
+        this.pfcFile = pfcFile;
+        String cacheName = pfcFile.getName();
+        // Remove cabinet file extension.
+        int lastDot = cacheName.lastIndexOf(".");
+        if (lastDot > 0) {
+            cacheName = cacheName.substring(0, lastDot);
+        }
+        cacheFile = new File(pfcFile.getParent(), cacheName + CACHE_EXT);
+    }
+
+    /** Returns File object representing cache path and file name.
+     */
+    public File getFile() {
+        return cacheFile;
+    }
+
+    /**
+     *  Reads item table from the cache file.  Returns null if the cache
+     *  file does not exist, or does not match the cabinet.  The index
+     *  fields of the cabinet must already be set.
+     */
+    ItemTable read(CabinetReader reader, Cabinet cabinet) {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(cacheFile, "r");
+            long fileSize = file.length();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+
+            // Check file id and cache key with a plain read.  The file is
+            // mapped only if it matches, as a mapped file cannot be 
+            // deleted or replaced on some systems.
+            byte[] headerBytes = new byte[HEADER_SIZE];
+            file.readFully(headerBytes);
+            ByteBuffer header = ByteBuffer.wrap(headerBytes);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] id = new byte[CACHE_ID.length];
+            header.get(id);
+            for (int i = 0; i < id.length; i++) {
+                if (id[i] != CACHE_ID[i]) { return null; }
+            }
+            if ((header.getLong() != reader.length()) ||
+                (header.getLong() != pfcFile.lastModified()) ||
+                (header.getLong() != getChecksum(reader, cabinet))) {
+                return null;
+            }
+            int size = header.getInt();
+            int labelCount = header.getInt();
+            int poolSize = header.getInt();
+            if ((size < 0) || (labelCount < 1) || (poolSize < 0) || 
+                (fileSize != HEADER_SIZE + (long)size * ROW_SIZE + 
+                    4L * (labelCount + 1) + poolSize)) {
+                return null;
+            }
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(HEADER_SIZE);
+
+            // Read table columns.
+            ItemTable table = new ItemTable(reader, size);
+            int[][] intColumns = table.getIntColumns();
+            for (int i = 0; i < intColumns.length; i++) {
+                buffer.asIntBuffer().get(intColumns[i]);
+                buffer.position(buffer.position() + (4 * size));
+            }
+            byte[][] byteColumns = table.getByteColumns();
+            for (int i = 0; i < byteColumns.length; i++) {
+                buffer.get(byteColumns[i]);
+            }
+
+            // Read label pool.
+            int[] starts = new int[labelCount + 1];
+            buffer.asIntBuffer().get(starts);
+            buffer.position(buffer.position() + (4 * starts.length));
+            byte[] pool = new byte[poolSize];
+            buffer.get(pool);
+            if (!isValid(starts, poolSize, intColumns[intColumns.length - 1])) {
+                return null;
+            }
+            table.setLabelPool(new LabelPool(pool, poolSize, starts, 
+                labelCount));
+            return table;
+        }
+        catch (IOException iox) {
+            return null;
+        }
+        catch (RuntimeException rex) {
+            // Cache file is damaged.
+            return null;
+        }
+        finally {
+            if (file != null) {
+                try { file.close(); }
+                catch (IOException iox) {}
+            }
+        }
+    }
+
+    /**
+     *  Writes item table to the cache file.  The table is written to a
+     *  temporary file first, which then replaces any existing cache file.
+     *  Returns false if the cache file could not be written.
+     */
+    boolean write(CabinetReader reader, Cabinet cabinet, ItemTable table) {
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            FileChannel channel = out.getChannel();
+            int size = table.size();
+            LabelPool labels = table.getLabelPool();
+            int labelCount = labels.getCount();
+            int poolSize = labels.size();
+
+            // Write file id and cache key.
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.put(CACHE_ID);
+            header.putLong(reader.length());
+            header.putLong(pfcFile.lastModified());
+            header.putLong(getChecksum(reader, cabinet));
+            header.putInt(size);
+            header.putInt(labelCount);
+            header.putInt(poolSize);
+            header.rewind();
+            writeFully(channel, header);
+
+            // Write table columns.
+            ByteBuffer column = ByteBuffer.allocate(4 * size);
+            column.order(ByteOrder.LITTLE_ENDIAN);
+            int[][] intColumns = table.getIntColumns();
+            for (int i = 0; i < intColumns.length; i++) {
+                column.clear();
+                column.asIntBuffer().put(intColumns[i]);
+                writeFully(channel, column);
+            }
+            byte[][] byteColumns = table.getByteColumns();
+            for (int i = 0; i < byteColumns.length; i++) {
+                writeFully(channel, ByteBuffer.wrap(byteColumns[i]));
+            }
+
+            // Write label pool.
+            ByteBuffer starts = ByteBuffer.allocate(4 * (labelCount + 1));
+            starts.order(ByteOrder.LITTLE_ENDIAN);
+            starts.asIntBuffer().put(labels.getStarts(), 0, labelCount + 1);
+            writeFully(channel, starts);
+            writeFully(channel, ByteBuffer.wrap(labels.getBytes(), 0, poolSize));
+            out.close();
+            out = null;
+
+            // Replace existing cache file.
+            cacheFile.delete();
+            if (!tempFile.renameTo(cacheFile)) {
+                tempFile.delete();
+                return false;
+            }
+            return true;
+        }
+        catch (IOException iox) {
+            // Cache file is optional, so ignore problems.
+            return false;
+        }
+        finally {
+            if (out != null) {
+                try { out.close(); }
+                catch (IOException iox) {}
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     *  Returns true if label starts are in order and within the label 
+     *  bytes, and all label ids are defined.
+     */
+    private static boolean isValid(int[] starts, int poolSize, int[] ids) {
+        if ((starts[0] != 0) || (starts[starts.length - 1] != poolSize)) {
+            return false;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            if (starts[i] < starts[i - 1]) { return false; }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if ((ids[i] < 0) || (ids[i] >= starts.length - 1)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     *  Returns checksum of the cabinet file header and index header.
+     */
+    private long getChecksum(CabinetReader reader, Cabinet cabinet)
+        throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[CHECK_LENGTH];
+        int len = reader.read(0L, buf, 0, buf.length);
+        crc.update(buf, 0, len);
+        len = reader.read(cabinet.getIdxStart(), buf, 0, 20);
+        crc.update(buf, 0, len);
+        return crc.getValue();
+    }
+
+    /**
+     *  Writes all remaining bytes in buffer to channel.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
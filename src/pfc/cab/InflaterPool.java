@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.util.ArrayList;
+import java.util.zip.Inflater;
+
+/**
+ *  Keeps Inflater objects for reuse by each thread.  An Inflater holds
+ *  native zlib memory, so creating and ending one for every message is
+ *  slow when many messages are uncompressed.  Each thread has its own
+ *  pool, so no locking is needed.  All inflaters expect raw deflate data
+ *  with no zlib header, as used by mail messages.
+ *  <p>
+ *  Idle inflaters stay in the pool until the thread calls clear().  A
+ *  worker thread that uncompresses messages should call clear() before
+ *  it finishes, or the native memory of its inflaters is only freed when
+ *  they are finalized.
+ *
+ *  @author Ernie Yu
+ */
+public class InflaterPool {
+
+    // maximum number of idle inflaters kept per thread
+    private static final int MAX_IDLE = 4;
+
+    private static ThreadLocal pools = new ThreadLocal() {
+        protected Object initialValue() {
+            return new ArrayList();
+        }
+    };
+
+    /**
+     *  Returns an Inflater from the pool for the current thread, or a new
+     *  Inflater if the pool is empty.
+     */
+    public static Inflater borrow() {
+        ArrayList pool = (ArrayList)pools.get();
+        if (pool.isEmpty()) {
+            return new Inflater(true);
+        }
+        return (Inflater)pool.remove(pool.size() - 1);
+    }
+
+    /**
+     *  Resets the Inflater and returns it to the pool for the current 
+     *  thread.  If the pool is full, the Inflater is ended instead.
+     */
+    public static void release(Inflater inflater) {
+        ArrayList pool = (ArrayList)pools.get();
+        if (pool.size() < MAX_IDLE) {
+            inflater.reset();
+            pool.add(inflater);
+        }
+        else {
+            inflater.end();
+        }
+    }
+
+    /**
+     *  Ends all idle Inflaters in the pool for the current thread.
+     */
+    public static void clear() {
+        ArrayList pool = (ArrayList)pools.get();
+        for (int i = 0; i < pool.size(); i++) {
+            ((Inflater)pool.get(i)).end();
+        }
+        pool.clear();
+    }
+
+}
@@ -60,6 +60,17 @@ public class IntUtil {
         return (b0 | b1 | b2 | b3);
     }
 
+    /**
+     *  Constructs int from four bytes in an array, starting at the 
+     *  specified offset.  Byte order is little-endian.
+     */
+    public static int toInt(byte[] array, int offset) {
+        return ((array[offset + 3] << 24) | 
+                ((array[offset + 2] & 0xff) << 16) |
+                ((array[offset + 1] & 0xff) << 8) | 
+                (array[offset] & 0xff));
+    }
+
     /**
      *  Constructs short given two bytes.  Byte order is little-endian.
      */
@@ -27,31 +27,70 @@ import java.util.*;
 /**
  *  Represents a mail message block.  Cabinet items that hold mail messages
  *  are composed of a series of blocks.  Each block is marked by the string 
- *  "AOLH" at the start, and "AOLF" at the end.  The ItemBlock constructor 
- *  further parses the block into an array of subitems.
+ *  "AOLH" at the start, and "AOLF" at the end.  An ItemBlock is a view of
+ *  the block data within the item content, so no bytes are copied.  The
+ *  getSubItems() method further parses the block into a list of subitems.
  *  @author Ernie Yu
+ *  <br>17 Oct 2026 Block refers to item content instead of a copy.
  */
 public class ItemBlock {
 
     public static final String START_MARK = "AOLH";
     public static final String END_MARK = "AOLF";
 
-    private byte[] content;         // block content
+    private byte[] buffer;          // item content
+    private int offset;             // start of block data in content
+    private int length;             // length of block data
 
     /**
      *  Constructor.
      *  @param array block contents
      */
     public ItemBlock(byte[] array) {
-        content = array;
+        this(array, 0, array.length);
     }
 
+    /**
+     *  Constructor.
+     *  @param buffer array holding block contents
+     *  @param offset start of block contents in array
+     *  @param length length of block contents
+     */
+    public ItemBlock(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Returns a copy of the block contents.
+     */
     public byte[] getContent() {
+        byte[] content = new byte[length];
+        System.arraycopy(buffer, offset, content, 0, length);
         return content;
     }
 
+    /** Returns array holding block contents.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /** Returns start of block contents in array.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
     public int getLength() {
-        return content.length;
+        return length;
+    }
+
+    /**
+     *  Parses block contents into an array list of BlockSubItem objects.
+     */
+    public ArrayList getSubItems() {
+        return BlockSubItem.parseBlockContent(buffer, offset, length);
     }
 
     /** 
@@ -60,43 +99,23 @@ public class ItemBlock {
      *  method to allow content parsing for different item types.
      */
     public static ArrayList parseItemContent(byte[] content) {
-
-        ArrayList blockList = new ArrayList();
-        int pos = 0;
-
-        while (pos < content.length) {
-            StringBuffer startBuffer = new StringBuffer();
-
-            // Next four bytes should be start of next block.
-            for (int i = 0; i < 4; i++) {
-                startBuffer.append((char)content[pos + i]);
-            }
-
-            if (startBuffer.toString().equals(START_MARK)) {
-                // Next four bytes should be block length.
-                int blockLen = IntUtil.toInt(content[pos + 4],
-                    content[pos + 5], content[pos + 6], content[pos + 7]);
-
-                // Create new block excluding start and end markers.
-                byte[] block = new byte[blockLen - 12];
-
-                // Read block data into separate byte array.
-                for (int i = 0; i < (blockLen - 12); i++) {
-                    block[i] = content[pos + 8 + i];
+        final ArrayList blockList = new ArrayList();
+        RecordScanner.scan(content, 
+            new RecordVisitor() {
+                public boolean onBlockStart(byte[] buffer, int offset, 
+                    int length) {
+                    // Add block data excluding start and end markers.
+                    blockList.add(new ItemBlock(buffer, offset, length));
+                    return true;
                 }
-
-                // Add ItemBlock object to list.
-                blockList.add(new ItemBlock(block));
-
-                // Advance to next block.
-                pos += blockLen;
-            }
-            else {
-                // Something is wrong.
-                break;
-            }
-        }
-
+                public boolean onSubItem(short id, byte type, byte[] buffer,
+                    int offset, int length) {
+                    return true;
+                }
+                public boolean onBlockEnd() {
+                    return true;
+                }
+            });
         return blockList;
     }
 
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.IOException;
+
+/**
+ *  Holds the fields and pointers of all entries in the Filing Cabinet.
+ *  Each field is kept in a separate primitive array indexed by position
+ *  in the cabinet index, so a cabinet with a million entries needs only
+ *  a few arrays instead of a million objects.  CabinetItem objects are
+ *  lightweight views over a single row of the table.  The record layouts
+ *  are described in CabinetItem.
+ *
+ *  @author Ernie Yu
+ */
+public class ItemTable {
+
+    // attribute bits
+    private static final byte ENVELOPE = 0x01;
+    private static final byte FOLDER = 0x02;
+    private static final byte SYS_FOLDER = 0x04;
+
+    // label position in envelope content
+    private static final int LABEL_START = 18;
+    private static final int LABEL_END = 108;
+
+    private CabinetReader reader;
+    private int size;
+
+    private int[] address;          // record address in cabinet
+    private int[] length;           // record length
+    private byte[] type;            // record type
+    private byte[] attrs;           // envelope, folder, system folder bits
+    private byte[] flags;           // mail message flags
+
+    // Pointers to other records.
+    private int[] data;             // pointer to data record
+    private int[] next;             // pointer to next envelope
+    private int[] prev;             // pointer to previous envelope
+    private int[] parent;           // pointer to parent envelope
+    private int[] child;            // pointer to child envelope
+
+    // Envelope labels.
+    private LabelPool labels;       // labels for all envelopes
+    private int[] label;            // label id in pool
+
+    /**
+     *  Constructor.
+     *  @param reader cabinet file reader
+     *  @param size number of entries in cabinet index
+     */
+    public ItemTable(CabinetReader reader, int size) {
+        this.reader = reader;
+        this.size = size;
+        address = new int[size];
+        length = new int[size];
+        type = new byte[size];
+        attrs = new byte[size];
+        flags = new byte[size];
+        data = new int[size];
+        next = new int[size];
+        prev = new int[size];
+        parent = new int[size];
+        child = new int[size];
+        labels = new LabelPool();
+        label = new int[size];
+    }
+
+    /** Returns reader for cabinet file.
+     */
+    public CabinetReader getReader() {
+        return reader;
+    }
+
+    /** Returns number of entries in table.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getAddress(int index) {
+        return address[index];
+    }
+
+    public int getLength(int index) {
+        return length[index];
+    }
+
+    public int getType(int index) {
+        return type[index];
+    }
+
+    public boolean isEnvelope(int index) {
+        return ((attrs[index] & ENVELOPE) != 0);
+    }
+
+    public boolean isFolder(int index) {
+        return ((attrs[index] & FOLDER) != 0);
+    }
+
+    public boolean isSysFolder(int index) {
+        return ((attrs[index] & SYS_FOLDER) != 0);
+    }
+
+    public byte getFlags(int index) {
+        return flags[index];
+    }
+
+    public int getData(int index) {
+        return data[index];
+    }
+
+    public int getNext(int index) {
+        return next[index];
+    }
+
+    public int getPrev(int index) {
+        return prev[index];
+    }
+
+    public int getParent(int index) {
+        return parent[index];
+    }
+
+    public int getChild(int index) {
+        return child[index];
+    }
+
+    /**
+     *  Returns envelope label for entry, or empty string if not an 
+     *  envelope.
+     */
+    public String getLabel(int index) {
+        return labels.getString(label[index]);
+    }
+
+    /** Returns pool holding envelope labels.
+     */
+    LabelPool getLabelPool() {
+        return labels;
+    }
+
+    /** Sets pool holding envelope labels.
+     */
+    void setLabelPool(LabelPool pool) {
+        labels = pool;
+    }
+
+    /**
+     *  Returns int columns of the table.  The order is address, length, 
+     *  data, next, prev, parent, child, label id.
+     */
+    int[][] getIntColumns() {
+        return new int[][] { address, length, data, next, prev, parent, 
+            child, label };
+    }
+
+    /**
+     *  Returns byte columns of the table.  The order is type, attributes,
+     *  flags.
+     */
+    byte[][] getByteColumns() {
+        return new byte[][] { type, attrs, flags };
+    }
+
+    /**
+     *  Reads the record at the specified address, and sets the fields and
+     *  pointers for the table entry.  Only the leading bytes needed to
+     *  identify the record are read.  Different entries may be read by
+     *  different threads at the same time.
+     */
+    void readItem(int index, int addr) throws IOException {
+        byte[] content;
+        address[index] = addr;
+        if (addr != 0) {
+            // Get item length, and read start of item.
+            length[index] = reader.readInt(addr + 4);
+            content = readContent(addr, length[index], 
+                CabinetItem.ENVELOPE_LENGTH);
+        } else {
+            // Create empty byte array for zero entry.
+            content = new byte[4];
+            length[index] = content.length;
+        }
+        int itemType = CabinetItem.UNKNOWN;
+        byte itemAttrs = 0;
+
+        // Get first four bytes as characters.
+        // Check content length since AOL 9 contains short items. (12/30/06)
+        StringBuffer header = new StringBuffer();
+        for (int k = 0; k < Math.min(content.length, 4); k++) {
+            header.append((char)content[k]);
+        }
+
+        // Check for data subrecord header
+        if (header.toString().equals("AOLH")) {
+            // Get first subitem; try to determine if mail or address
+            short a = IntUtil.toShort(content[8], content[9]);
+            byte b = content[10];
+            short c = IntUtil.toShort(content[11], content[12]);
+            if (a == 1) {
+                if ((b == '\002') && (c == 0)) {
+                    itemType = CabinetItem.MAIL_DATA;
+                }
+                else if (b == '\005') {
+                    itemType = CabinetItem.ADDR_DATA;
+                }
+            }
+        }
+        // Check for envelope record
+        else if (length[index] == CabinetItem.ENVELOPE_LENGTH) {
+            itemAttrs |= ENVELOPE;
+
+            short a = IntUtil.toShort(content[0], content[1]);
+            short b = IntUtil.toShort(content[2], content[3]);
+
+            if ((b & 0x0001) == 0x0001) {
+                itemAttrs |= FOLDER;
+                itemType = CabinetItem.FOLDER;
+            }
+            if ((b & 0x0100) == 0x0100) {
+                itemAttrs |= SYS_FOLDER;
+            }
+
+            switch (a) {
+                case 2:
+                    itemType = CabinetItem.FAVE_ENVELOPE;
+                    break;
+                case 3: case 4:
+                    itemType = CabinetItem.FILE_FOLDER;
+                    break;
+                case 5: case 6:
+                    itemType = CabinetItem.FILE_ENVELOPE;
+                    break;
+                case 9:
+                    itemType = CabinetItem.FLASH_ENVELOPE;
+                    break;
+                case 7: case 8: case 12:
+                    itemType = CabinetItem.MAIL_ENVELOPE;
+                    break;
+                case 14: case 15: case 20:
+                    itemType = CabinetItem.POST_ENVELOPE;
+                    break;
+                case 17:
+                    itemType = CabinetItem.ADDR_ENVELOPE;
+                    break;
+                case 18:
+                    itemType = CabinetItem.GROUP_ENVELOPE;
+                    break;
+                default:
+                    // not significant for now
+            }
+
+            // Get mail message flags.
+            flags[index] = content[14];
+
+            // Get pointers to other records in index.
+            data[index] = IntUtil.toInt(content, 106);
+            next[index] = IntUtil.toInt(content, 110);
+            prev[index] = IntUtil.toInt(content, 114);
+            parent[index] = IntUtil.toInt(content, 118);
+            child[index] = IntUtil.toInt(content, 122);
+
+            // Save envelope label.
+            int len = 0;
+            while ((LABEL_START + len < LABEL_END) && 
+                   (content[LABEL_START + len] != 0)) {
+                len++;
+            }
+            label[index] = labels.add(content, LABEL_START, len);
+        }
+        type[index] = (byte)itemType;
+        attrs[index] = itemAttrs;
+    }
+
+    /**
+     *  Reads content of the specified entry from the cabinet file, up to
+     *  the specified maximum number of bytes.
+     */
+    byte[] readContent(int index, int maxLength) throws IOException {
+        int addr = address[index];
+        if (addr != 0) {
+            return readContent(addr, reader.readInt(addr + 4), maxLength);
+        } else {
+            // Create empty byte array for zero entry.
+            return new byte[4];
+        }
+    }
+
+    /**
+     *  Reads up to maxLength bytes of the item at the specified address.
+     */
+    private byte[] readContent(int addr, int len, int maxLength) 
+        throws IOException {
+        byte[] content = new byte[Math.min(len, maxLength)];
+        reader.read(addr + 8, content, 0, content.length);
+        return content;
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+/**
+ *  Holds the envelope labels of all items in a cabinet.  Each distinct
+ *  label is stored once: the label bytes are appended to one shared byte
+ *  array, and the label is identified by an id number.  Label id 0 is 
+ *  always the empty label.  A label is converted to a String the first 
+ *  time it is requested, and the String is kept for later requests.  
+ *  Labels may be added by several threads while the cabinet is loaded.
+ *
+ *  @author Ernie Yu
+ */
+public class LabelPool {
+
+    private byte[] bytes;           // label bytes
+    private int size;               // number of bytes used
+    private int[] start;            // start of each label in bytes
+    private int count;              // number of labels
+    private String[] strings;       // labels converted to strings
+    private int[] slots;            // hash table of label id + 1, or null
+
+    /** Creates a new instance of LabelPool holding the empty label.
+     */
+    public LabelPool() {
+        this(new byte[4096], 0, new int[] { 0, 0 }, 1);
+    }
+
+    /** Creates a new instance of LabelPool holding existing labels.  The
+     *  bytes of label i run from start[i] up to start[i + 1].
+     */
+    LabelPool(byte[] bytes, int size, int[] start, int count) {
+        this.bytes = bytes;
+        this.size = size;
+        this.start = start;
+        this.count = count;
+        strings = new String[start.length];
+        slots = null;
+    }
+
+    /** Adds label bytes to the pool, and returns the id of the label.  If
+     *  the pool already holds the same label, its id is returned.
+     */
+    public synchronized int add(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (slots == null) {
+            rehash(16);
+        }
+        // Look for same label in hash table.
+        int mask = slots.length - 1;
+        int slot = hash(b, off, len) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (equals(id, b, off, len)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Append new label.
+        if (size + len > bytes.length) {
+            byte[] newBytes = new byte[Math.max(bytes.length * 2, size + len)];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+        if (count + 1 == start.length) {
+            int[] newStart = new int[start.length * 2];
+            System.arraycopy(start, 0, newStart, 0, start.length);
+            start = newStart;
+            String[] newStrings = new String[newStart.length];
+            System.arraycopy(strings, 0, newStrings, 0, strings.length);
+            strings = newStrings;
+        }
+        System.arraycopy(b, off, bytes, size, len);
+        size += len;
+        int id = count++;
+        start[count] = size;
+        slots[slot] = id + 1;
+
+        // Grow hash table if half full.
+        if (count * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /** Returns the label with the specified id as a string.  Each byte is
+     *  converted to one character.
+     */
+    public synchronized String getString(int id) {
+        String label = strings[id];
+        if (label == null) {
+            int len = start[id + 1] - start[id];
+            char[] chars = new char[len];
+            for (int i = 0; i < len; i++) {
+                chars[i] = (char)(bytes[start[id] + i] & 0xff);
+            }
+            label = new String(chars);
+            strings[id] = label;
+        }
+        return label;
+    }
+
+    /** Returns number of labels in pool.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /** Returns number of label bytes in pool.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Returns array holding the label bytes.  Only the first size()
+     *  bytes are used.
+     */
+    synchronized byte[] getBytes() {
+        return bytes;
+    }
+
+    /** Returns array holding the start of each label in the label bytes.
+     *  Only the first getCount() + 1 values are used.
+     */
+    synchronized int[] getStarts() {
+        return start;
+    }
+
+    /**
+     *  Creates hash table with at least the specified number of slots, and
+     *  adds all labels.  The table is created when the first label is 
+     *  added, so a pool read from a cache file does not need it.
+     */
+    private void rehash(int minSlots) {
+        int length = minSlots;
+        while (length <= count * 2) {
+            length *= 2;
+        }
+        slots = new int[length];
+        for (int id = 1; id < count; id++) {
+            putSlot(id);
+        }
+    }
+
+    /**
+     *  Adds existing label to hash table.
+     */
+    private void putSlot(int id) {
+        int mask = slots.length - 1;
+        int slot = hash(bytes, start[id], start[id + 1] - start[id]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    /**
+     *  Returns true if label bytes are the same as the label with the
+     *  specified id.
+     */
+    private boolean equals(int id, byte[] b, int off, int len) {
+        if (start[id + 1] - start[id] != len) {
+            return false;
+        }
+        int pos = start[id];
+        for (int i = 0; i < len; i++) {
+            if (bytes[pos + i] != b[off + i]) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     *  Returns hash code for label bytes.
+     */
+    private static int hash(byte[] b, int off, int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + b[off + i];
+        }
+        // Mix bits so similar labels use different slots.
+        h = (h ^ (h >>> 16)) * 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+}
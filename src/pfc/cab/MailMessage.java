@@ -22,6 +22,7 @@
 
 package pfc.cab;
 
+import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.zip.*;
@@ -29,14 +30,29 @@ import java.util.zip.*;
 /** 
  *  Contains all of the components of an email message.  The contents of
  *  a cabinet item are parsed by the main constructor to retrieve the
- *  mail components.
+ *  mail components.  In lazy mode, the constructor only records where
+ *  the header fields are in the item contents; each field is converted
+ *  to a string when first requested, and the body is uncompressed only
+ *  when the body, header, or attachment is requested.
  *
  *  @author Ernie Yu
+ *  <br>17 Oct 2026 Added lazy mode.
+ *  <br>17 Oct 2026 Parses date with AolDateParser.
+ *  <br>17 Oct 2026 Passes pre-V7 body bytes to a RecordVisitor.
  */
 public class MailMessage {
 
     public static final String HEADER_LINE = 
         "----------------------- Headers --------------------------------";
+
+    // marker in subitem text that starts the header
+    private static final String HEADER_MARK = "----- Headers -----";
+
+    // number of standard field ids
+    private static final int FIELD_COUNT = 18;
+
+    // size of buffer for uncompressed data
+    private static final int SCRATCH_SIZE = 16384;
     
     // standard fields
     private String dateString;
@@ -48,6 +64,8 @@ public class MailMessage {
     private String recipient;
     private String subject;
     private String body;
+    private long dateMillis;
+    private boolean dateParsed;
 
     // AOL fields
     private byte[] check;
@@ -64,190 +82,161 @@ public class MailMessage {
     private String attLocation;
     private String binLocation;
 
+    // lazy mode
+    private byte[] content;         // item contents in lazy mode
+    private int[] fieldOffset;      // offset of standard field by id
+    private int[] fieldLength;      // length of standard field by id
+    private boolean bodyParsed;
+
     /** 
      *  Constructor.
      *  @param content contents of CabinetItem for mail message.
      */
     public MailMessage(byte[] content) {
-        // Parse message content into blocks.
-        ArrayList blockList = ItemBlock.parseItemContent(content);
-        
-        StringBuffer bodyBuffer = new StringBuffer();
-        StringBuffer headBuffer = new StringBuffer();
-        Inflater inflater = new Inflater(true);
-        boolean v7Message = false;
-        boolean oldHeader = false;
-        boolean firstData = true;
-
-        // Loop through all item blocks.
-        for (int i = 0; i < blockList.size(); i++) {
-            ItemBlock block = (ItemBlock)blockList.get(i);
-            int blockLen = block.getLength();
-
-            // Get all subitems.
-            ArrayList subItems = BlockSubItem.parseBlockContent(
-                block.getContent());
-
-            short extType = -1;
-
-            // Loop through all subitems.
-            for (int j = 0; j < subItems.size(); j++) {
-                BlockSubItem subItem = (BlockSubItem)subItems.get(j);
-                byte[] data = subItem.getContent();
-
-                if (data.length > 0) {
-                    // Process standard subitem types.
-                    switch (subItem.getId()) {
-                      case 3:
-                        check = data;
-                        break;
-                      case 5:
-                        dateString = new String(data);
-                        break;
-                      case 6:
-                        from = new String(data);
-                        break;
-                      case 7:
-                        to = new String(data);
-                        break;
-                      case 8:
-                        cc = new String(data);
-                        break;
-                      case 9:
-                        bcc = new String(data);
-                        break;
-                      case 10:
-                        subject = new String(data);
-                        break;
-                      case 11:
-                        screenname = new String(data);
-                        break;
-                      case 16:
-                        replyTo = new String(data);
-                        break;
-                      case 17:
-                        recipient = new String(data);
-                        break;
-                      default:
-                        // Throw other data away.
-                    }
-                }
-                // Process extended subitem types.
-                switch (subItem.getId()) {
-                  case 12:
-                    extType = IntUtil.toShort(data[0], data[1]);
-                    break;
-                  case 13:
-                    switch (extType) {
-                      case 0:
-                        if (!v7Message) {
-                            if (isHeaderString(data)) {
-                                oldHeader = true;
-                                // Sometimes, header text is immediately
-                                // after the header line.
-                                headBuffer.append(getHeaderText(data));
-                            }
-                            else if (oldHeader) {
-                                // Sometimes, additional header text is 
-                                // contained in a separate block.
-                                headBuffer.append(new String(data));
-                            }
-                            else {
-                                // pre-V7 body text
-                                bodyBuffer.append(new String(data));
-                            }
-                        }
-                        break;
-                      case 1:
-                        // Attachment file name
-                        StringBuffer buffer = new StringBuffer();
-                        for (int k = 14; k < data.length; k++) {
-                            if (data[k] == '\000') { break; }
-                            buffer.append((char)data[k]);
-                        }
-                        attachment = buffer.toString();
-                        break;
-                      case 5:
-                        // V7 header
-                        headBuffer.append(toV7String(data));
-                        break;
-                      case 256:
-                        // V7 body text - skip first piece
-                        if (!firstData) {
-                            bodyBuffer.append(unpackData(data, inflater));
-                        }
-                        firstData = false;
-                        break;
-                      case 257:
-                        // Start of V7 header
-                        v7Message = true;
-                        break;
-                      case 260:
-                        // End of V7 header
-                        v7Message = false;
-                        break;
-                      default:
-                        // Throw other extended data away.
-                    }
-                    extType = -1;   // Reset extended type indicator
-                    break;
-                  default:
-                    // Throw other data away.
-                }
-            }   // end of loop through subitems.
-        }       // end of loop through item blocks.
-        
-        inflater.end();
-        body = bodyBuffer.toString();
-        mailHeader = headBuffer.toString();
-        if (from == null) { from = screenname; }
+        this(content, false);
+    }
+
+    /** 
+     *  Constructor.
+     *  @param content contents of CabinetItem for mail message.
+     *  @param lazy true to convert fields only when requested
+     */
+    public MailMessage(byte[] content, boolean lazy) {
+        if (lazy) {
+            // Record positions of standard fields.
+            this.content = content;
+            fieldOffset = new int[FIELD_COUNT];
+            fieldLength = new int[FIELD_COUNT];
+            RecordScanner.scan(content, new FieldScanner());
+            bodyParsed = false;
+        }
+        else {
+            parseContent(content, true);
+            if (from == null) { from = screenname; }
+        }
+    }
+
+    /**
+     *  Scans message content, and saves mail components.  Standard fields
+     *  are saved only if requested.
+     */
+    private void parseContent(byte[] content, boolean saveFields) {
+        MessageParser parser = new MessageParser(saveFields);
+        try {
+            RecordScanner.scan(content, parser);
+        }
+        finally {
+            InflaterPool.release(parser.inflater);
+        }
+        body = parser.bodyBuffer.toString();
+        mailHeader = parser.headBuffer.toString();
+        bodyParsed = true;
+    }
+
+    /**
+     *  Parses body, header and attachment in lazy mode, if not done yet.
+     */
+    private void parseBody() {
+        if (!bodyParsed) {
+            parseContent(content, false);
+        }
+    }
+
+    /**
+     *  Returns standard field converted to a string in lazy mode.  Returns
+     *  null if the field is not found.
+     */
+    private String getField(int id) {
+        if ((content == null) || (fieldLength[id] == 0)) {
+            return null;
+        }
+        return new String(content, fieldOffset[id], fieldLength[id]);
     }
 
     // Accessor methods.
     public String getDateString() {
+        if (dateString == null) { dateString = getField(5); }
         return dateString;
     }
 
     public String getFrom() {
+        if (from == null) { 
+            from = getField(6); 
+            if (from == null) { from = getField(11); }
+        }
         return from;
     }
 
     public String getTo() {
+        if (to == null) { to = getField(7); }
         return to;
     }
 
     public String getCc() {
+        if (cc == null) { cc = getField(8); }
         return cc;
     }
 
     public String getBcc() {
+        if (bcc == null) { bcc = getField(9); }
         return bcc;
     }
 
     public String getReplyTo() {
+        if (replyTo == null) { replyTo = getField(16); }
         return replyTo;
     }
 
     public String getRecipient() {
+        if (recipient == null) { recipient = getField(17); }
         return recipient;
     }
 
     public String getSubject() {
+        if (subject == null) { subject = getField(10); }
         return subject;
     }
 
     public String getBody() {
+        parseBody();
         return body;
     }
     
     public String getAttachment() {
+        parseBody();
         return attachment;
     }
 
+    /**
+     *  Passes each body text subitem of a pre-V7 message to the onSubItem()
+     *  method of the visitor, without converting the bytes to strings.
+     *  Together, the subitems hold the text returned by getBody().  Returns
+     *  false without calling the visitor if the message is not in lazy
+     *  mode, or its body is compressed V7 text.
+     */
+    public boolean visitBodyBytes(RecordVisitor visitor) {
+        if (content == null) {
+            return false;
+        }
+        BodyScanner scanner = new BodyScanner();
+        RecordScanner.scan(content, scanner);
+        if (scanner.compressed) {
+            return false;
+        }
+        for (int i = 0; i < scanner.count; i++) {
+            if (!visitor.onSubItem((short)13, scanner.types[i], content,
+                scanner.offsets[i], scanner.lengths[i])) {
+                break;
+            }
+        }
+        return true;
+    }
+
     /** 
      *  Returns true if body text includes &lt;html&gt; tag.
      */
     public boolean isHtml() {
+        String body = getBody();
         int htmlStart = body.indexOf("<html>");
         if (htmlStart < 0) { htmlStart = body.indexOf("<HTML>"); }
         if (htmlStart < 0) {
@@ -262,6 +251,7 @@ public class MailMessage {
      *  header, then the header is manufactured from other fields.
      */
     public String getMailHeader() {
+        parseBody();
         if ((mailHeader != null) && (mailHeader.trim().length() > 0)) {
             return mailHeader;
         }
@@ -269,9 +259,9 @@ public class MailMessage {
             StringBuffer buffer = new StringBuffer();
             String separator = System.getProperty("line.separator");
             buffer.append("Date: ").append(formatHeaderDate()).append(separator);
-            buffer.append("To: ").append(to).append(separator);
-            buffer.append("From: ").append(from).append(separator);
-            buffer.append("Subject: ").append(subject).append(separator);
+            buffer.append("To: ").append(getTo()).append(separator);
+            buffer.append("From: ").append(getFrom()).append(separator);
+            buffer.append("Subject: ").append(getSubject()).append(separator);
             return buffer.toString();
         }
     }
@@ -282,129 +272,105 @@ public class MailMessage {
      *  document.  AOL inserts these for display in its HTML-enabled window.
      */
     public String getBodyText() {
-        StringBuffer buffer = new StringBuffer(body);
+        StringWriter out = new StringWriter(getBody().length());
+        try {
+            writeBodyText(out);
+        }
+        catch (IOException iox) {
+            // Not thrown by StringWriter.
+        }
+        return out.toString();
+    }
+
+    /**
+     *  Writes body text of mail message to the specified Writer.  The text
+     *  is converted in the same way as getBodyText(), in a single pass.
+     *  Text between the tags is written in runs, and converted text is not
+     *  scanned again.
+     */
+    public void writeBodyText(Writer out) throws IOException {
+        String body = getBody();
+        char[] chars = body.toCharArray();
         String separator = System.getProperty("line.separator");
         boolean htmlDoc = false;
+        int runStart = 0;
         int pos = 0;
         // Move through body text.
-        while (pos < buffer.length()) {
-            String token = nextToken(buffer, pos);
-            if (token != null) {
-                if (htmlDoc) {
-                    if (token.equalsIgnoreCase("</html>")) {
-                        htmlDoc = false;
-                    }
-                }
-                else {
-                    if (token.equalsIgnoreCase("<html>")) {
-                        htmlDoc = true;
-                    }
-                    else if (token.equalsIgnoreCase("<BR>")) {
-                        buffer.delete(pos, pos + token.length());
-                        buffer.insert(pos, separator);
-                    }
-                    else if (token.equalsIgnoreCase("&nbsp;")) {
-                        buffer.delete(pos, pos + token.length());
-                        buffer.insert(pos, " ");
-                    }
-                    else if (token.equalsIgnoreCase("&amp;")) {
-                        buffer.delete(pos, pos + token.length());
-                        buffer.insert(pos, "&");
-                    }
-                    else if (token.equalsIgnoreCase("&lt;")) {
-                        buffer.delete(pos, pos + token.length());
-                        buffer.insert(pos, "<");
-                    }
-                    else if (token.equalsIgnoreCase("&gt;")) {
-                        buffer.delete(pos, pos + token.length());
-                        buffer.insert(pos, ">");
-                    }
+        while (pos < chars.length) {
+            char chr = chars[pos];
+            String text = null;     // replacement text
+            int length = 0;         // length of token replaced
+            if (htmlDoc) {
+                if ((chr == '<') && body.regionMatches(true, pos, "</html>", 0, 7)) {
+                    htmlDoc = false;
                 }
             }
-            pos++;
-        }
-        // Return converted text.
-        return buffer.toString();
-    }
-    
-    /**
-     *  Returns next token if it is an HTML tag or character entity that we
-     *  are searching for.
-     */
-    private String nextToken(StringBuffer buffer, int pos) {
-        try {
-            char chr = buffer.charAt(pos);
-            if (chr == '<') {
-                if (buffer.substring(pos, pos + 4).equalsIgnoreCase("<BR>")) {
-                    return buffer.substring(pos, pos + 4);
-                }
-                else if (buffer.substring(pos, pos + 6).equalsIgnoreCase("<html>")) {
-                    return buffer.substring(pos, pos + 6);
+            else if (chr == '<') {
+                if (body.regionMatches(true, pos, "<html>", 0, 6)) {
+                    htmlDoc = true;
                 }
-                else if (buffer.substring(pos, pos + 7).equalsIgnoreCase("</html>")) {
-                    return buffer.substring(pos, pos + 7);
+                else if (body.regionMatches(true, pos, "<BR>", 0, 4)) {
+                    text = separator;
+                    length = 4;
                 }
             }
             else if (chr == '&') {
-                if (buffer.substring(pos, pos + 6).equalsIgnoreCase("&nbsp;")) {
-                    return buffer.substring(pos, pos + 6);
+                if (body.regionMatches(true, pos, "&nbsp;", 0, 6)) {
+                    text = " ";
+                    length = 6;
                 }
-                if (buffer.substring(pos, pos + 5).equalsIgnoreCase("&amp;")) {
-                    return buffer.substring(pos, pos + 5);
+                else if (body.regionMatches(true, pos, "&amp;", 0, 5)) {
+                    text = "&";
+                    length = 5;
                 }
-                if (buffer.substring(pos, pos + 4).equalsIgnoreCase("&lt;")) {
-                    return buffer.substring(pos, pos + 4);
+                else if (body.regionMatches(true, pos, "&lt;", 0, 4)) {
+                    text = "<";
+                    length = 4;
                 }
-                if (buffer.substring(pos, pos + 4).equalsIgnoreCase("&gt;")) {
-                    return buffer.substring(pos, pos + 4);
+                else if (body.regionMatches(true, pos, "&gt;", 0, 4)) {
+                    text = ">";
+                    length = 4;
                 }
             }
-        } 
-        catch (StringIndexOutOfBoundsException ex) { 
-            // Do nothing; same as no token found.
+            if (text != null) {
+                // Write text before token, and replacement text.
+                out.write(chars, runStart, pos - runStart);
+                out.write(text);
+                pos += length;
+                runStart = pos;
+            }
+            else {
+                pos++;
+            }
         }
-        // Nothing found so return null.
-        return null;
+        // Write remaining text.
+        out.write(chars, runStart, chars.length - runStart);
     }
     
     /**
-     *  Parses AOL date string and returns Date object.  Returns null if
-     *  the date string cannot be parsed.  The date string is known to take
-     *  one of three forms: <BR>
+     *  Parses AOL date string and returns the time in milliseconds since
+     *  January 1, 1970 GMT.  Returns AolDateParser.INVALID if the date 
+     *  string cannot be parsed.  The date string is known to take one of 
+     *  three forms: <BR>
      *  a)  12/2/2001 6:18:53 PM Eastern Standard Time <BR>
      *  b)  12/2/01 <BR>
      *  c)  01-12-02 18:18:53 EST
      */
-    public Date getDate() {
-        Date date = null;
-        // Create formatter with format pattern.
-        SimpleDateFormat format = new SimpleDateFormat("M/d/yy h:m:s a z");
-
-        // Try parsing with first date format pattern.
-        try {
-            date = format.parse(dateString);
-        }
-        catch (ParseException pex) { date = null; }
-
-        if (date == null) {
-            // Try parsing with second date format pattern.
-            try {
-                format.applyPattern("M/d/yy");
-                date = format.parse(dateString);
-            }
-            catch (ParseException pex) { date = null; }
-
-            // Try parsing with third date format pattern.
-            if (date == null) {
-                try {
-                    format.applyPattern("yy-MM-dd HH:mm:ss z");
-                    date = format.parse(dateString);
-                }
-                catch (ParseException pex) { date = null; }
-            }
+    public long getDateMillis() {
+        if (!dateParsed) {
+            dateMillis = AolDateParser.parse(getDateString());
+            dateParsed = true;
         }
+        return dateMillis;
+    }
 
-        return date;
+    /**
+     *  Parses AOL date string and returns Date object.  Returns null if
+     *  the date string cannot be parsed.
+     */
+    public Date getDate() {
+        long millis = getDateMillis();
+        return (millis != AolDateParser.INVALID) ? new Date(millis) : null;
     }
 
     /**
@@ -419,7 +385,7 @@ public class MailMessage {
         if (date != null) {
             return format.format(date);
         } else {
-            return dateString;
+            return getDateString();
         }
     }
 
@@ -429,15 +395,15 @@ public class MailMessage {
     public String toHeadString(boolean outgoing) {
         StringBuffer buf = new StringBuffer();
         String separator = System.getProperty("line.separator");
-        buf.append("Date: ").append(dateString).append(separator);
+        buf.append("Date: ").append(getDateString()).append(separator);
         if (outgoing) {
-            buf.append("To: ").append(to).append(separator);
+            buf.append("To: ").append(getTo()).append(separator);
         } else {
-            buf.append("From: ").append(from).append(separator);
+            buf.append("From: ").append(getFrom()).append(separator);
         }
-        buf.append("Subject: ").append(subject).append(separator);
-        if (attachment != null) {
-            buf.append("Attachment: ").append(attachment);
+        buf.append("Subject: ").append(getSubject()).append(separator);
+        if (getAttachment() != null) {
+            buf.append("Attachment: ").append(getAttachment());
         }
         return buf.toString();
     }
@@ -460,11 +426,10 @@ public class MailMessage {
     }
     
     /**
-     *  Returns true if subitem data contains standard header line.
+     *  Returns true if subitem text contains standard header line.
      */
-    private boolean isHeaderString(byte[] data) {
-        String text = new String(data);
-        int pos = text.indexOf("----- Headers -----");
+    private boolean isHeaderString(String text) {
+        int pos = text.indexOf(HEADER_MARK);
         if (pos >= 0) {
             return true;
         }
@@ -474,14 +439,13 @@ public class MailMessage {
     }
 
     /**
-     *  Strips off header separator string in subitem data, and returns 
+     *  Strips off header separator string in subitem text, and returns 
      *  remaining text.
      */
-    private String getHeaderText(byte[] data) {
+    private String getHeaderText(String text) {
         StringBuffer buffer = new StringBuffer();
         // Find header line.
-        String text = new String(data);
-        int pos = text.indexOf("----- Headers -----");
+        int pos = text.indexOf(HEADER_MARK);
         if (pos >= 0) {
             // Find end of header line.
             pos = text.indexOf("-----\015\012", pos);
@@ -493,13 +457,13 @@ public class MailMessage {
     }
 
     /**
-     *  Converts byte array with V7 header data to a character string.  
+     *  Converts subitem data with V7 header to a character string.  
      *  Replaces all occurences of Del (0x7f) with system line separator.
      */
-    private String toV7String(byte[] data) {
+    private String toV7String(byte[] data, int offset, int length) {
         StringBuffer buffer = new StringBuffer();
         String separator = System.getProperty("line.separator");
-        for (int i = 0; i < data.length; i++) {
+        for (int i = offset; i < offset + length; i++) {
             if (data[i] == 0x7f) {
                 buffer.append(separator);
             }
@@ -511,24 +475,303 @@ public class MailMessage {
     }
 
     /**
-     *  Uncompresses byte array into a character string.  This is applied
-     *  to mail content saved in later versions.
+     *  Uncompresses subitem data into a character string.  This is applied
+     *  to mail content saved in later versions.  The data is uncompressed
+     *  in a loop through the scratch buffer, and collected in the output
+     *  stream, which is cleared first.  The inflater may hold data that
+     *  continues in the next subitem.
      */
-    private String unpackData(byte[] data, Inflater inflater) {
+    private String unpackData(byte[] data, int offset, int dataLength, 
+        Inflater inflater, byte[] scratch, ByteArrayOutputStream out) {
         StringBuffer result = new StringBuffer();
         String separator = System.getProperty("line.separator");
-        // Set input byte array, and create output buffer.
-        inflater.setInput(data);
-        byte[] buffer = new byte[(10 * data.length)];
+        // Set input bytes.
+        inflater.setInput(data, offset, dataLength);
+        out.reset();
         try {
-            // Uncompress bytes into buffer, and convert to text.
-            int length = inflater.inflate(buffer, 0, (10 * data.length));
-            result.append(new String(buffer, 0, length));
+            // Uncompress bytes until input is used up.
+            while (!inflater.finished()) {
+                int length = inflater.inflate(scratch, 0, scratch.length);
+                if (length == 0) { 
+                    // Input is used up, or dictionary is needed.
+                    break; 
+                }
+                out.write(scratch, 0, length);
+            }
+            // Convert to text.
+            result.append(out.toString());
         }
         catch (DataFormatException dfx) {
+            result.append(out.toString());
             result.append(separator).append(dfx.toString());
         }
         return result.toString();
     }
 
+    /**
+     *  Saves mail components from the subitems of a mail message.
+     */
+    private class MessageParser implements RecordVisitor {
+
+        private boolean saveFields;
+        private StringBuffer bodyBuffer = new StringBuffer();
+        private StringBuffer headBuffer = new StringBuffer();
+        private Inflater inflater = InflaterPool.borrow();
+        private byte[] scratch = null;
+        private ByteArrayOutputStream unpacked = null;
+        private boolean v7Message = false;
+        private boolean oldHeader = false;
+        private boolean firstData = true;
+        private short extType = -1;
+
+        /** Constructor.
+         *  @param saveFields true to save standard fields
+         */
+        public MessageParser(boolean saveFields) {
+            this.saveFields = saveFields;
+        }
+
+        public boolean onBlockStart(byte[] buffer, int offset, int length) {
+            extType = -1;
+            return true;
+        }
+
+        public boolean onSubItem(short id, byte type, byte[] data, 
+            int offset, int length) {
+            if (saveFields && (length > 0)) {
+                // Process standard subitem types.
+                switch (id) {
+                  case 3:
+                    check = new byte[length];
+                    System.arraycopy(data, offset, check, 0, length);
+                    break;
+                  case 5:
+                    dateString = new String(data, offset, length);
+                    break;
+                  case 6:
+                    from = new String(data, offset, length);
+                    break;
+                  case 7:
+                    to = new String(data, offset, length);
+                    break;
+                  case 8:
+                    cc = new String(data, offset, length);
+                    break;
+                  case 9:
+                    bcc = new String(data, offset, length);
+                    break;
+                  case 10:
+                    subject = new String(data, offset, length);
+                    break;
+                  case 11:
+                    screenname = new String(data, offset, length);
+                    break;
+                  case 16:
+                    replyTo = new String(data, offset, length);
+                    break;
+                  case 17:
+                    recipient = new String(data, offset, length);
+                    break;
+                  default:
+                    // Throw other data away.
+                }
+            }
+            // Process extended subitem types.
+            switch (id) {
+              case 12:
+                if (length < 2) {
+                    throw new ArrayIndexOutOfBoundsException(length);
+                }
+                extType = IntUtil.toShort(data[offset], data[offset + 1]);
+                break;
+              case 13:
+                switch (extType) {
+                  case 0:
+                    if (!v7Message) {
+                        String text = new String(data, offset, length);
+                        if (isHeaderString(text)) {
+                            oldHeader = true;
+                            // Sometimes, header text is immediately
+                            // after the header line.
+                            headBuffer.append(getHeaderText(text));
+                        }
+                        else if (oldHeader) {
+                            // Sometimes, additional header text is 
+                            // contained in a separate block.
+                            headBuffer.append(text);
+                        }
+                        else {
+                            // pre-V7 body text
+                            bodyBuffer.append(text);
+                        }
+                    }
+                    break;
+                  case 1:
+                    // Attachment file name
+                    StringBuffer buffer = new StringBuffer();
+                    for (int k = offset + 14; k < offset + length; k++) {
+                        if (data[k] == '\000') { break; }
+                        buffer.append((char)data[k]);
+                    }
+                    attachment = buffer.toString();
+                    break;
+                  case 5:
+                    // V7 header
+                    headBuffer.append(toV7String(data, offset, length));
+                    break;
+                  case 256:
+                    // V7 body text - skip first piece
+                    if (!firstData) {
+                        if (scratch == null) {
+                            scratch = new byte[SCRATCH_SIZE];
+                            unpacked = new ByteArrayOutputStream();
+                        }
+                        bodyBuffer.append(unpackData(data, offset, length,
+                            inflater, scratch, unpacked));
+                    }
+                    firstData = false;
+                    break;
+                  case 257:
+                    // Start of V7 header
+                    v7Message = true;
+                    break;
+                  case 260:
+                    // End of V7 header
+                    v7Message = false;
+                    break;
+                  default:
+                    // Throw other extended data away.
+                }
+                extType = -1;   // Reset extended type indicator
+                break;
+              default:
+                // Throw other data away.
+            }
+            return true;
+        }
+
+        public boolean onBlockEnd() {
+            return true;
+        }
+    }
+
+
+    /**
+     *  Records the position of pre-V7 body text subitems, using the same
+     *  rules as MessageParser.
+     */
+    private class BodyScanner implements RecordVisitor {
+
+        private byte[] types = new byte[4];
+        private int[] offsets = new int[4];
+        private int[] lengths = new int[4];
+        private int count = 0;
+        private boolean compressed = false;
+        private boolean v7Message = false;
+        private boolean oldHeader = false;
+        private short extType = -1;
+
+        public boolean onBlockStart(byte[] buffer, int offset, int length) {
+            extType = -1;
+            return true;
+        }
+
+        public boolean onSubItem(short id, byte type, byte[] data,
+            int offset, int length) {
+            if (id == 12) {
+                if (length < 2) {
+                    throw new ArrayIndexOutOfBoundsException(length);
+                }
+                extType = IntUtil.toShort(data[offset], data[offset + 1]);
+            }
+            else if (id == 13) {
+                if ((extType == 0) && !v7Message) {
+                    if (hasHeaderMark(data, offset, length)) {
+                        oldHeader = true;
+                    }
+                    else if (!oldHeader) {
+                        add(type, offset, length);
+                    }
+                }
+                else if (extType == 256) {
+                    compressed = true;
+                }
+                else if (extType == 257) {
+                    v7Message = true;
+                }
+                else if (extType == 260) {
+                    v7Message = false;
+                }
+                extType = -1;
+            }
+            return true;
+        }
+
+        public boolean onBlockEnd() {
+            return true;
+        }
+
+        /**
+         *  Adds position of body text subitem.
+         */
+        private void add(byte type, int offset, int length) {
+            if (count == offsets.length) {
+                byte[] newTypes = new byte[count * 2];
+                int[] newOffsets = new int[count * 2];
+                int[] newLengths = new int[count * 2];
+                System.arraycopy(types, 0, newTypes, 0, count);
+                System.arraycopy(offsets, 0, newOffsets, 0, count);
+                System.arraycopy(lengths, 0, newLengths, 0, count);
+                types = newTypes;
+                offsets = newOffsets;
+                lengths = newLengths;
+            }
+            types[count] = type;
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        /**
+         *  Returns true if subitem bytes contain standard header mark.
+         */
+        private boolean hasHeaderMark(byte[] data, int offset, int length) {
+            int markLength = HEADER_MARK.length();
+            for (int i = offset; i <= offset + length - markLength; i++) {
+                int j = 0;
+                while ((j < markLength) &&
+                       (data[i + j] == HEADER_MARK.charAt(j))) {
+                    j++;
+                }
+                if (j == markLength) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     *  Records the position of standard fields in a mail message.
+     */
+    private class FieldScanner implements RecordVisitor {
+
+        public boolean onBlockStart(byte[] buffer, int offset, int length) {
+            return true;
+        }
+
+        public boolean onSubItem(short id, byte type, byte[] data, 
+            int offset, int length) {
+            if ((length > 0) && (id >= 0) && (id < FIELD_COUNT)) {
+                fieldOffset[id] = offset;
+                fieldLength[id] = length;
+            }
+            return true;
+        }
+
+        public boolean onBlockEnd() {
+            return true;
+        }
+    }
 }
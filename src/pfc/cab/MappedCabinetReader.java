@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ *  Class implementing CabinetReader using a memory-mapped file.  The whole
+ *  cabinet is mapped read-only when the reader is created, and all reads
+ *  are served from the mapped buffer without any system calls.  Since
+ *  cabinet addresses are ints, files larger than 2 GB cannot be mapped.
+ *
+ *  @author Ernie Yu
+ */
+public class MappedCabinetReader implements CabinetReader {
+
+    private RandomAccessFile pfcFile;
+    private ByteBuffer buffer;
+
+    /** Constructor.  Maps the entire file into memory.
+     *  @param file cabinet file
+     */
+    public MappedCabinetReader(RandomAccessFile file) throws IOException {
+        FileChannel channel = file.getChannel();
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Cabinet file too large to map.");
+        }
+        pfcFile = file;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Returns length of cabinet file in bytes.
+     */
+    public long length() {
+        return buffer.capacity();
+    }
+
+    /** Returns little-endian int value at the specified byte position.
+     */
+    public int readInt(long pos) throws IOException {
+        if ((pos < 0) || (pos > buffer.capacity() - 4)) {
+            throw new EOFException();
+        }
+        return buffer.getInt((int)pos);
+    }
+
+    /** Reads count little-endian int values from the specified byte 
+     *  position into an array.
+     */
+    public void readInts(long pos, int[] dst, int off, int count)
+        throws IOException {
+        if ((pos < 0) || (pos > buffer.capacity() - (4L * count))) {
+            throw new EOFException();
+        }
+        // Byte order is not inherited by a duplicate, so set it again.
+        ByteBuffer view = buffer.duplicate();
+        view.order(ByteOrder.LITTLE_ENDIAN);
+        view.position((int)pos);
+        view.asIntBuffer().get(dst, off, count);
+    }
+
+    /** Reads up to len bytes from the specified byte position into an
+     *  array.  Returns the number of bytes read.
+     */
+    public int read(long pos, byte[] b, int off, int len) throws IOException {
+        if ((pos < 0) || (pos >= buffer.capacity())) {
+            return 0;
+        }
+        int count = (int)Math.min(len, buffer.capacity() - pos);
+        // Copy from a duplicate so the shared buffer position is untouched.
+        ByteBuffer view = buffer.duplicate();
+        view.position((int)pos);
+        view.get(b, off, count);
+        return count;
+    }
+
+    /** Closes cabinet file.  The mapped buffer is released when it is
+     *  garbage collected.
+     */
+    public void close() throws IOException {
+        pfcFile.close();
+    }
+
+}
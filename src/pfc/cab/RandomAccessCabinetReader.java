@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ *  Class implementing CabinetReader using a RandomAccessFile.  Each read
+ *  seeks to the requested position, so reads are synchronized on the
+ *  reader.  The file channel is not used for reads, as interrupting a
+ *  thread blocked in a channel read would close the file for all other
+ *  threads.
+ *
+ *  @author Ernie Yu
+ */
+public class RandomAccessCabinetReader implements CabinetReader {
+
+    private static final int CHUNK_SIZE = 65536;
+
+    private RandomAccessFile pfcFile;
+
+    /** Constructor.
+     *  @param file cabinet file
+     */
+    public RandomAccessCabinetReader(RandomAccessFile file) {
+        pfcFile = file;
+    }
+
+    /** Returns length of cabinet file in bytes.
+     */
+    public long length() throws IOException {
+        return pfcFile.length();
+    }
+
+    /** Returns little-endian int value at the specified byte position.
+     */
+    public int readInt(long pos) throws IOException {
+        byte[] b = new byte[4];
+        if (read(pos, b, 0, 4) < 4) {
+            throw new EOFException();
+        }
+        return IntUtil.toInt(b, 0);
+    }
+
+    /** Reads count little-endian int values from the specified byte 
+     *  position into an array.  The values are read in large chunks.
+     */
+    public void readInts(long pos, int[] dst, int off, int count)
+        throws IOException {
+        byte[] chunk = new byte[Math.min(count * 4, CHUNK_SIZE)];
+        while (count > 0) {
+            int n = Math.min(count, chunk.length / 4);
+            if (read(pos, chunk, 0, n * 4) < (n * 4)) {
+                throw new EOFException();
+            }
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = IntUtil.toInt(chunk, i * 4);
+            }
+            pos += n * 4;
+            off += n;
+            count -= n;
+        }
+    }
+
+    /** Reads up to len bytes from the specified byte position into an
+     *  array.  Returns the number of bytes read.
+     */
+    public synchronized int read(long pos, byte[] b, int off, int len)
+        throws IOException {
+        if (pos < 0) {
+            return 0;
+        }
+        pfcFile.seek(pos);
+        int count = 0;
+        while (count < len) {
+            int n = pfcFile.read(b, off + count, len - count);
+            if (n < 0) { break; }
+            count += n;
+        }
+        return count;
+    }
+
+    /** Closes cabinet file.
+     */
+    public void close() throws IOException {
+        pfcFile.close();
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+/**
+ *  Collection of static methods to scan the blocks and subitems of a
+ *  cabinet data record in a single pass.  Each part is passed to a
+ *  RecordVisitor as it is found.  No objects are created while scanning.
+ *  Blocks or subitems with lengths that run past the end of the data end 
+ *  the scan of the record or block.
+ *
+ *  @author Ernie Yu
+ */
+public class RecordScanner {
+
+    /**
+     *  Scans all blocks in the record content.  Returns false if the 
+     *  visitor stopped the scan.
+     */
+    public static boolean scan(byte[] content, RecordVisitor visitor) {
+        int pos = 0;
+
+        while (pos + 8 <= content.length) {
+            // Next four bytes should be start of next block.
+            if (!isStartMark(content, pos)) {
+                // Something is wrong.
+                break;
+            }
+            // Next four bytes should be block length.
+            int blockLen = IntUtil.toInt(content, pos + 4);
+            if ((blockLen < 12) || (blockLen - 4 > content.length - pos)) {
+                // Block length is wrong.
+                break;
+            }
+
+            // Scan block data excluding start and end markers.
+            if (!visitor.onBlockStart(content, pos + 8, blockLen - 12) ||
+                !scanBlock(content, pos + 8, blockLen - 12, visitor) ||
+                !visitor.onBlockEnd()) {
+                return false;
+            }
+
+            // Advance to next block.
+            pos += blockLen;
+        }
+        return true;
+    }
+
+    /**
+     *  Scans all subitems in the specified block data.  Returns false if
+     *  the visitor stopped the scan.
+     */
+    public static boolean scanBlock(byte[] content, int offset, int length,
+        RecordVisitor visitor) {
+        int pos = offset;
+        int end = offset + length;
+
+        while (pos + 3 <= end) {
+            // Next two bytes should be subitem id.
+            short subId = IntUtil.toShort(content[pos], content[pos + 1]);
+            // Next byte is subitem type.
+            byte subType = content[pos + 2];
+            // Determine subitem position and length.
+            int subOffset;
+            int subLength;
+            switch (subType) {
+                case 1:
+                    subOffset = 3;
+                    subLength = 1;
+                    break;
+                case 2: case 3:
+                    subOffset = 3;
+                    subLength = 2;
+                    break;
+                case 4:
+                    subOffset = 3;
+                    subLength = 4;
+                    break;
+                default:
+                    if (pos + 7 > end) {
+                        return true;
+                    }
+                    subOffset = 7;
+                    subLength = IntUtil.toInt(content, pos + 3);
+            }
+            if ((subLength < 0) || (subLength > end - pos - subOffset)) {
+                // Subitem length is wrong.
+                break;
+            }
+
+            if (!visitor.onSubItem(subId, subType, content, pos + subOffset,
+                subLength)) {
+                return false;
+            }
+
+            // Advance to next subitem.
+            pos += (subOffset + subLength);
+        }
+        return true;
+    }
+
+    /**
+     *  Returns true if the bytes at the specified position are the block
+     *  start marker.
+     */
+    private static boolean isStartMark(byte[] content, int pos) {
+        return ((content[pos] == 'A') && (content[pos + 1] == 'O') &&
+                (content[pos + 2] == 'L') && (content[pos + 3] == 'H'));
+    }
+
+}
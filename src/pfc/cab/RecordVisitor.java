@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.cab;
+
+/**
+ *  Generic interface to receive the parts of a cabinet data record as it
+ *  is scanned by a RecordScanner.  A data record is a series of blocks,
+ *  and each block is a series of subitems.  The subitem data is passed as
+ *  a position in the record array, so nothing is copied.  Each method 
+ *  returns true to continue scanning, or false to stop.
+ *
+ *  @author Ernie Yu
+ */
+public interface RecordVisitor {
+
+    /** Called at the start of a block.  The block data excludes the start
+     *  and end markers.
+     */
+    public boolean onBlockStart(byte[] buffer, int offset, int length);
+
+    /** Called for each subitem in a block.
+     */
+    public boolean onSubItem(short id, byte type, byte[] buffer, int offset,
+        int length);
+
+    /** Called at the end of a block.
+     */
+    public boolean onBlockEnd();
+
+}
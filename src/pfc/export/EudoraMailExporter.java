@@ -36,6 +36,8 @@ import pfc.cab.*;
  *  in the file.
  *
  * @author  Ernie Yu
+ * <br>17 Oct 2026 Parses each message once for mbox and TOC files.
+ * <br>17 Oct 2026 Writes messages prepared on worker threads.
  */
 public class EudoraMailExporter extends MboxMailExporter {
 
@@ -68,19 +70,38 @@ public class EudoraMailExporter extends MboxMailExporter {
      */
     public void export(CabinetItem envelope, CabinetItem item) 
         throws IOException {
-        super.export(envelope, item);
+        // Parse item contents once for both mbox and TOC files.
+        MailMessage message = new MailMessage(item.getContent());
+        exportMessage(message);
         // Get initial and new file sizes in bytes.
         int offset = mboxSize;
         mboxSize = mbox.getSize();
         // Write message entry to TOC file.
-        toc.writeMessage(item, offset, (mboxSize - offset));
+        toc.writeMessage(message, offset, (mboxSize - offset));
+    }
+    
+    /** Writes prepared message to export file, and writes message entry
+     *  to TOC file.
+     */
+    public void write(Object prepared) throws IOException {
+        super.write(prepared);
+        // Get initial and new file sizes in bytes.
+        int offset = mboxSize;
+        mboxSize = mbox.getSize();
+        // Write message entry to TOC file.
+        toc.writeMessage(((PreparedMessage)prepared).message, offset, 
+            (mboxSize - offset));
     }
     
     /** Closes export file.
      */
-    public void close() {
-        super.close();
-        toc.close();
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            toc.close();
+        }
         PceFile.addMailbox(mbox.getFile(), false);
     }
     
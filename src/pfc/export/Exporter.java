@@ -40,6 +40,7 @@ public interface Exporter {
     public static final int MBOX = 1;
     public static final int MBOX_TOC = 2;
     public static final int FAVE_HTML = 3;
+    public static final int MBOXRD = 4;
 
     /** Sets file to receive exported items.
      */
@@ -66,8 +67,8 @@ public interface Exporter {
      */
     public void closeFolder();
     
-    /** Closes export file.
+    /** Closes export file.  Any output still buffered is written first.
      */
-    public void close();
+    public void close() throws IOException;
 
 }
@@ -54,6 +54,11 @@ public class ExporterFactory {
             case Exporter.FAVE_HTML:
                 exporter = new FavoriteHtmlExporter();
                 break;
+            case Exporter.MBOXRD:
+                MboxMailExporter mboxExporter = new MboxMailExporter();
+                mboxExporter.setMboxrd(true);
+                exporter = mboxExporter;
+                break;
             default:
                 // Do nothing.
         }
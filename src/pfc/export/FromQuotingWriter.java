@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.export;
+
+import java.io.*;
+
+/**
+ *  Writer that quotes lines beginning with "From " as text is written to
+ *  an mbox file.  These lines are quoted by inserting a &gt; character at
+ *  the start, which distinguishes them from the first line of an mbox 
+ *  mail message.  In mboxrd style, lines beginning with any number of
+ *  &gt; characters followed by "From " are also quoted, so a reader can 
+ *  remove exactly one &gt; from each quoted line.  The first line of the 
+ *  text is checked too.
+ *  <p>
+ *  Characters at the start of a line are held back only until it is known
+ *  whether the line must be quoted, so the text is never copied in full.
+ *  The flush() method writes any characters held back; it should be 
+ *  called at the end of the text.
+ *
+ *  @author Ernie Yu
+ */
+public class FromQuotingWriter extends FilterWriter {
+
+    private static final String FROM = "From ";
+
+    private boolean mboxrd;
+    private boolean matching;       // true if line start may need quoting
+    private char[] pending;         // characters held back
+    private int pendingCount;
+    private int quoteCount;         // number of > characters held back
+
+    /**
+     *  Constructor.
+     *  @param out writer to receive quoted text
+     *  @param mboxrd true to quote lines in mboxrd style
+     */
+    public FromQuotingWriter(Writer out, boolean mboxrd) {
+        super(out);
+        this.mboxrd = mboxrd;
+        matching = true;
+        pending = new char[16];
+        pendingCount = 0;
+        quoteCount = 0;
+    }
+
+    /** Writes a single character.
+     */
+    public void write(int c) throws IOException {
+        char chr = (char)c;
+        if (matching) {
+            match(chr);
+        }
+        else {
+            out.write(chr);
+            if (chr == '\n') {
+                matching = true;
+            }
+        }
+    }
+
+    /** Writes a portion of an array of characters.
+     */
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int runStart = off;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (matching) {
+                match(cbuf[i]);
+                runStart = i + 1;
+            }
+            else if (cbuf[i] == '\n') {
+                // Write line, and check start of next line.
+                out.write(cbuf, runStart, i + 1 - runStart);
+                runStart = i + 1;
+                matching = true;
+            }
+        }
+        if (runStart < end) {
+            out.write(cbuf, runStart, end - runStart);
+        }
+    }
+
+    /** Writes a portion of a string.
+     */
+    public void write(String str, int off, int len) throws IOException {
+        write(str.toCharArray(), off, len);
+    }
+
+    /** Writes any characters held back, and flushes the stream.  If
+     *  characters were held back, the current line is not checked any 
+     *  further.
+     */
+    public void flush() throws IOException {
+        if (pendingCount > 0) { writePending(); }
+        out.flush();
+    }
+
+    /** Writes any characters held back, and closes the stream.
+     */
+    public void close() throws IOException {
+        if (pendingCount > 0) { writePending(); }
+        out.close();
+    }
+
+    /**
+     *  Adds character at the start of a line, and decides whether the 
+     *  line needs quoting.
+     */
+    private void match(char chr) throws IOException {
+        int fromCount = pendingCount - quoteCount;
+        if (mboxrd && (chr == '>') && (fromCount == 0)) {
+            // Hold back leading > characters.
+            addPending(chr);
+            quoteCount++;
+        }
+        else if (chr == FROM.charAt(fromCount)) {
+            addPending(chr);
+            if (fromCount + 1 == FROM.length()) {
+                // Line starts with From, so quote it.
+                out.write('>');
+                writePending();
+            }
+        }
+        else {
+            // Line does not need quoting.
+            writePending();
+            write(chr);
+        }
+    }
+
+    /**
+     *  Holds back a character at the start of a line.
+     */
+    private void addPending(char chr) {
+        if (pendingCount == pending.length) {
+            char[] newPending = new char[pending.length * 2];
+            System.arraycopy(pending, 0, newPending, 0, pendingCount);
+            pending = newPending;
+        }
+        pending[pendingCount++] = chr;
+    }
+
+    /**
+     *  Writes characters held back, and stops checking the current line.
+     */
+    private void writePending() throws IOException {
+        out.write(pending, 0, pendingCount);
+        pendingCount = 0;
+        quoteCount = 0;
+        matching = false;
+    }
+
+}
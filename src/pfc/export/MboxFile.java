@@ -23,23 +23,41 @@
 package pfc.export;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
- *  Represents Unix mbox file for emails.
+ *  Represents Unix mbox file for emails.  Bytes are collected in a large
+ *  direct buffer, and written to the file channel only when the buffer is
+ *  full or the file is closed.  Messages may be written as characters
+ *  through the print writer, or as bytes that are already encoded.
  *
  * @author  Ernie Yu
+ * <br>17 Oct 2026 Writes through a FileChannel and direct buffer.
+ * <br>17 Oct 2026 Reports errors while closing, and always closes file.
  */
 public class MboxFile {
     
+    // size of direct buffer for output
+    private static final int BUFFER_SIZE = 262144;
+
     private File mboxFile;
-    private DataOutputStream dos;
+    private FileOutputStream fos;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long written;
     private PrintWriter out;
+    private boolean closed;
     
     /** Creates a new instance of MboxFile */
     public MboxFile(File mboxFile) {
         this.mboxFile = mboxFile;
-        dos = null;
+        fos = null;
+        channel = null;
+        buffer = null;
+        written = 0L;
         out = null;
+        closed = false;
     }
 
     /** Returns File object representing mbox path and file name.
@@ -48,50 +66,158 @@ public class MboxFile {
         return mboxFile;
     }
     
-    /** Returns print writer for character output to mbox file.  Output
-     *  is filtered through a DataOutputStream so we can access the number
-     *  of bytes written to the file.
+    /** Returns print writer for character output to mbox file.  Flushing
+     *  the print writer moves its characters into the output buffer, but
+     *  does not write them to the file.
      */
     public PrintWriter getPrintWriter() throws IOException {
-        // Create output stream and print writer if necessary.
+        // Create print writer if necessary.
         if (out == null) {
-            dos = new DataOutputStream(new FileOutputStream(mboxFile));
-            out = new PrintWriter(
-                new BufferedWriter(new OutputStreamWriter(dos)));
+            open();
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new BufferStream())));
         }
         return out;
     }
+
+    /** Writes bytes to mbox file, after any characters written to the 
+     *  print writer.
+     */
+    public void write(byte[] bytes) throws IOException {
+        open();
+        if (out != null) {
+            out.flush();
+        }
+        put(bytes, 0, bytes.length);
+    }
     
-    /** Returns number of bytes written to mbox file.
+    /** Returns number of bytes written to mbox file, including bytes not
+     *  yet flushed from the print writer.
      */
-    public int getSize() {
-        if (dos != null) {
-            return dos.size();
+    public long getPosition() {
+        if (out != null) {
+            out.flush();
+        }
+        if (buffer != null) {
+            return written + buffer.position();
         } else {
-            return 0;
+            return written;
         }
     }
+
+    /** Returns number of bytes written to mbox file.
+     */
+    public int getSize() {
+        return (int)getPosition();
+    }
     
-    /** Closes writer and output stream for mbox file.
+    /** Closes writer and output stream for mbox file.  The output stream
+     *  is closed even if the buffered bytes cannot be written, and the
+     *  error is then thrown.
      */
-    public void close() {
+    public void close() throws IOException {
+        closed = true;
+        boolean writerFailed = false;
         if (out != null) {
-            out.close();
+            writerFailed = out.checkError();
+            out = null;
         }
-        if (dos != null) {
-            try { dos.close(); }
-            catch (IOException iox) {
-                System.out.println(iox);
+        if (channel != null) {
+            try { 
+                drain();
+            }
+            finally {
+                try {
+                    channel.close();
+                    fos.close();
+                }
+                finally {
+                    channel = null;
+                    fos = null;
+                }
             }
         }
+        if (writerFailed) {
+            throw new IOException("Could not write mbox file " + 
+                mboxFile.getPath());
+        }
     }
     
     /** Closes output stream if still open.  Overrides method in Object 
      *  class.
      */
     protected void finalize() throws Throwable {
-        close();
+        try {
+            close();
+        }
+        catch (IOException iox) {}
         super.finalize();
     }
+
+    /**
+     *  Creates output stream, channel and buffer if necessary.
+     */
+    private void open() throws IOException {
+        if (closed) {
+            throw new IOException("Mbox file closed");
+        }
+        if (channel == null) {
+            fos = new FileOutputStream(mboxFile);
+            channel = fos.getChannel();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+            buffer.clear();
+            written = 0L;
+        }
+    }
+
+    /**
+     *  Adds bytes to the output buffer.  The buffer is written to the file
+     *  whenever it fills up.  Byte arrays larger than the buffer are 
+     *  written directly.
+     */
+    private void put(byte[] bytes, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            drain();
+            if (len > buffer.remaining()) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes, off, len);
+                while (wrapped.hasRemaining()) {
+                    written += channel.write(wrapped);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes, off, len);
+    }
+
+    /**
+     *  Writes all bytes in the output buffer to the file.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     *  Output stream that adds bytes to the output buffer.  Used by the
+     *  print writer.
+     */
+    private class BufferStream extends OutputStream {
+
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte)b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            put(b, off, len);
+        }
+    }
     
 }
@@ -34,16 +34,29 @@ import pfc.cab.*;
  *
  *  @author Ernie Yu
  *  <br>15 Mar 2003 Opens DataOutputStream to count bytes written.
+ *  <br>17 Oct 2026 Quotes From lines while the body is written.
+ *  <br>17 Oct 2026 Added exportMessage() for parsed messages.
+ *  <br>17 Oct 2026 Prepares messages on worker threads.
  */
-public class MboxMailExporter implements Exporter {
+public class MboxMailExporter implements ParallelExporter {
 
     protected MboxFile mbox;
     protected int msgCount;
+    private boolean mboxrd;
 
     /** Creates a new instance of MboxMailExporter */
     public MboxMailExporter() {
         mbox = null;
         msgCount = 0;
+        mboxrd = false;
+    }
+
+    /** Sets mboxrd style quoting.  If true, body lines beginning with any
+     *  number of &gt; characters followed by "From " are quoted, and not 
+     *  only lines beginning with "From ".
+     */
+    public void setMboxrd(boolean mboxrd) {
+        this.mboxrd = mboxrd;
     }
     
     /** Sets file to receive exported items.
@@ -79,9 +92,47 @@ public class MboxMailExporter implements Exporter {
      */
     public void export(CabinetItem envelope, CabinetItem item) 
         throws IOException {
-        PrintWriter out = mbox.getPrintWriter();
         // Create mail message by parsing item contents.
+        exportMessage(new MailMessage(item.getContent()));
+    }
+
+    /** Exports mail message that has already been parsed to export file.
+     */
+    protected void exportMessage(MailMessage message) throws IOException {
+        PrintWriter out = mbox.getPrintWriter();
+        writeMessage(message, out);
+        out.flush();
+        // Increment message count.
+        msgCount++;
+    }
+
+    /** Prepares cabinet item for export by parsing the mail item, and
+     *  converting the message to the bytes written to the mbox file.  
+     *  Returns a PreparedMessage object.  This method may be called by 
+     *  several threads at the same time.
+     */
+    public Object prepare(CabinetItem envelope, CabinetItem item) 
+        throws IOException {
         MailMessage message = new MailMessage(item.getContent());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(bytes));
+        writeMessage(message, out);
+        out.flush();
+        return new PreparedMessage(message, bytes.toByteArray());
+    }
+
+    /** Writes prepared message to export file.
+     */
+    public void write(Object prepared) throws IOException {
+        mbox.write(((PreparedMessage)prepared).bytes);
+        // Increment message count.
+        msgCount++;
+    }
+
+    /** Writes mail message in mbox format to the specified writer.
+     */
+    protected void writeMessage(MailMessage message, PrintWriter out) 
+        throws IOException {
         Date date = message.getDate();
         String attachment = message.getAttachment();
         // Write From line with date to file.
@@ -97,12 +148,13 @@ public class MboxMailExporter implements Exporter {
         if (attachment != null) {
             out.println("[" + attachment + "]");
         }
-        // Write body, and blank line at end of message.
-        out.println(indentFromInBody(message.getBodyText()));
+        // Write body with From lines quoted, and blank line at end of
+        // message.
+        FromQuotingWriter quoted = new FromQuotingWriter(out, mboxrd);
+        message.writeBodyText(quoted);
+        quoted.flush();
+        out.println();
         out.println();
-        out.flush();
-        // Increment message count.
-        msgCount++;
     }
 
     /** Closes folder in export file.  Does nothing here.
@@ -112,7 +164,7 @@ public class MboxMailExporter implements Exporter {
 
     /** Closes export file.
      */
-    public void close() {
+    public void close() throws IOException {
         mbox.close();
     }
 
@@ -126,23 +178,18 @@ public class MboxMailExporter implements Exporter {
         return format.format(date);
     }
 
-    /** Indents lines in the message body that begin with 'From '.  These
-     *  lines are quoted by inserting a &gt; character at the start.  This
-     *  distinguishes the lines from the first line of an mbox mail message.
+    /**
+     *  Mail message prepared for export, and the bytes to write to the
+     *  mbox file.
      */
-    private String indentFromInBody(String body) {
-        StringBuffer buffer = new StringBuffer(body);
-        // Set up search string.
-        String separator = System.getProperty("line.separator");
-        String fromAtStart = new String(separator + "From ");
-        // Search for occurrences of From at start of line.
-        int pos = buffer.indexOf(fromAtStart);
-        while (pos >= 0) {
-            // Insert symbol to quote line.
-            buffer.insert(pos + separator.length(), '>');
-            pos = buffer.indexOf(fromAtStart, pos + fromAtStart.length());
+    protected static class PreparedMessage {
+        protected MailMessage message;
+        protected byte[] bytes;
+
+        protected PreparedMessage(MailMessage message, byte[] bytes) {
+            this.message = message;
+            this.bytes = bytes;
         }
-        return buffer.toString();
     }
     
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.export;
+
+import java.io.IOException;
+import pfc.cab.CabinetItem;
+
+/**
+ *  Exporter that can prepare items on several threads at once.  When a
+ *  ParallelExporter is passed to Cabinet.export() with more than one
+ *  thread, the cabinet items are prepared by worker threads, and the
+ *  prepared items are written in the original order on the thread that
+ *  called Cabinet.export().  The other Exporter methods are also called
+ *  on that thread, in the same order as a serial export.
+ *
+ *  @author Ernie Yu
+ */
+public interface ParallelExporter extends Exporter {
+
+    /** Prepares cabinet item for export, and returns an object to pass to
+     *  write().  This method is called by several threads at the same
+     *  time, and must not write to the export file.
+     */
+    public Object prepare(CabinetItem envelope, CabinetItem item)
+        throws IOException;
+
+    /** Writes prepared item to export file.
+     */
+    public void write(Object prepared) throws IOException;
+
+}
@@ -23,18 +23,35 @@
 package pfc.export;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.Date;
 import pfc.cab.*;
 
 /**
- *  Represents mbox table of contents file for Eudora.
+ *  Represents mbox table of contents file for Eudora.  The header and
+ *  message entries are filled in a little-endian buffer, and written to
+ *  the file channel when the buffer is full.  The message count in the 
+ *  header is written in place when the file is closed.
  *
  * @author  Ernie Yu
+ * <br>17 Oct 2026 Writes entries through a buffer and FileChannel.
  */
 public class TocFile {
 
+    // header and message entry sizes, and message count position
+    private static final int HEADER_SIZE = 104;
+    private static final int ENTRY_SIZE = 218;
+    private static final int COUNT_POSITION = 102;
+
+    // number of message entries held in buffer
+    private static final int BUFFER_ENTRIES = 128;
+
     private File tocFile;
     private FileOutputStream out;
+    private FileChannel channel;
+    private ByteBuffer buffer;
     private String mboxName;
     private short msgCount;
     
@@ -52,6 +69,9 @@ public class TocFile {
         // Set File object for toc file.
         tocFile = new File(mboxFile.getParent(), mboxName + ".toc");
         out = null;
+        channel = null;
+        buffer = ByteBuffer.allocate(ENTRY_SIZE * BUFFER_ENTRIES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
         msgCount = 0;
     }
     
@@ -62,67 +82,43 @@ public class TocFile {
             // Create output stream if necessary.
             if (out == null) {
                 out = new FileOutputStream(tocFile);
+                channel = out.getChannel();
             }
+            reserve(HEADER_SIZE);
 
-            // Write all header bytes.
-            out.write(0x30);                    // 0-7: file id
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-        
-            byte[] byteBuf = mboxName.getBytes();   // 8-39: mailbox name
-            for (int i = 0; i < 32; i++) {
-                if (i < byteBuf.length) {
-                    out.write(byteBuf[i]);
-                } else {
-                    out.write(0x00);
-                }
-            }
-        
-            out.write(0x03);                    // 40-41: mailbox type
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-
-            out.write(0x00);                    // 44: mailbox class
-            out.write(0x00);
-
-            out.write(0x00);                    // 46: mailbox coordinates
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-            out.write(0x00);
-        
+            buffer.put((byte)0x30);                 // 0-7: file id
+            putZeros(7);
+            putString(mboxName, 32);                // 8-39: mailbox name
+            buffer.putShort((short)3);              // 40-41: mailbox type
+            putZeros(2);
+            putZeros(2);                            // 44: mailbox class
+            putZeros(8);                            // 46: mailbox coordinates
             for (int i = 54; i < 70; i++) {
-                out.write(0xff);
-            }
-
-            out.write(0x02);                    // 70-73:
-            out.write(0x00);
-            out.write(0x02);
-            out.write(0x00);
-        
-            for (int i = 74; i < 102; i++) {
-                out.write(0x00);
+                buffer.put((byte)0xff);
             }
-
-            out.write(shortToByte(msgCount));   // 102-103: message count
+            buffer.putShort((short)2);              // 70-73:
+            buffer.putShort((short)2);
+            putZeros(28);
+            buffer.putShort(msgCount);              // 102-103: message count
         }
         catch (IOException iox) {
             System.out.println(iox);
         }
     }
     
-    /** Writes TOC message entry.  The entry is always 218 bytes long.
+    /** Writes TOC message entry for cabinet item.  The entry is always 218
+     *  bytes long.
      */
     public void writeMessage(CabinetItem item, int offset, int length) {
+        // Create mail message to parse item contents.  Only the header
+        // fields are needed, so the body is never uncompressed.
+        writeMessage(new MailMessage(item.getContent(), true), offset, length);
+    }
+
+    /** Writes TOC message entry for mail message.  The entry is always 218
+     *  bytes long.
+     */
+    public void writeMessage(MailMessage message, int offset, int length) {
         int dateTime = 0;
         short status = 1;       // mark message read
         byte option1 = 0;
@@ -130,8 +126,6 @@ public class TocFile {
         short priority = 3;
         String ascTime;
         
-        // Create mail message to parse item contents.
-        MailMessage message = new MailMessage(item.getContent());
         // Create date string in ASCII time format.
         Date date = message.getDate();
         if (date != null) {
@@ -144,55 +138,23 @@ public class TocFile {
         String from = message.getFrom();
         String subject = message.getSubject();
         
-        // Write message entry to TOC file.
+        // Fill message entry in buffer.
         try {
-            out.write(intToByte(offset));           // 0-3: mbox start
-            out.write(intToByte(length));           // 4-7: message length
-            out.write(intToByte(dateTime));         // 8-11: date/time
-            out.write(shortToByte(status));         // 12-13: status
-            out.write(option1);
-            out.write(option2);
-            out.write(shortToByte(priority));       // 16-17: priority
-        
-            byte[] byteBuf = ascTime.getBytes();    // 18-49: ascii time
-            for (int i = 0; i < 32; i++) {
-                if (i < byteBuf.length) {
-                    out.write(byteBuf[i]);
-                } else {
-                    out.write(0x00);
-                }
-            }
-        
-            byteBuf = from.getBytes();              // 50-113: from field
-            for (int i = 0; i < 64; i++) {
-                if (i < byteBuf.length) {
-                    out.write(byteBuf[i]);
-                } else {
-                    out.write(0x00);
-                }
-            }
-        
-            byteBuf = subject.getBytes();           // 114-177: subject field
-            for (int i = 0; i < 64; i++) {
-                if (i < byteBuf.length) {
-                    out.write(byteBuf[i]);
-                } else {
-                    out.write(0x00);
-                }
-            }
-
-            out.write(0xff);                        // 178-185
-            out.write(0xff);
-            out.write(0xff);
-            out.write(0xff);
-            out.write(0xff);
-            out.write(0xff);
-            out.write(0xff);
-            out.write(0xff);
-            
-            for (int i = 186; i < 218; i++) {
-                out.write(0x00);
+            reserve(ENTRY_SIZE);
+            buffer.putInt(offset);                  // 0-3: mbox start
+            buffer.putInt(length);                  // 4-7: message length
+            buffer.putInt(dateTime);                // 8-11: date/time
+            buffer.putShort(status);                // 12-13: status
+            buffer.put(option1);
+            buffer.put(option2);
+            buffer.putShort(priority);              // 16-17: priority
+            putString(ascTime, 32);                 // 18-49: ascii time
+            putString(from, 64);                    // 50-113: from field
+            putString(subject, 64);                 // 114-177: subject field
+            for (int i = 178; i < 186; i++) {       // 178-185
+                buffer.put((byte)0xff);
             }
+            putZeros(218 - 186);
             
             // Increment message count.
             msgCount++;
@@ -202,32 +164,36 @@ public class TocFile {
         }
     }
     
-    /** Closes TOC file.
+    /** Closes TOC file.  Any buffered entries are written, and the 
+     *  message count is saved in the header.
      */
     public void close() {
-        // Close file output stream.
-        try {
-            out.close();
-        }
-        catch (IOException iox) {
-            System.out.println(iox);
+        if (channel == null) {
+            return;
         }
-        
-        // Reopen file for random access; save message count.
-        RandomAccessFile toc = null;
         try {
-            toc = new RandomAccessFile(tocFile, "rw");
-            toc.seek(102);
-            toc.write(shortToByte(msgCount));
+            drain();
+            ByteBuffer count = ByteBuffer.allocate(2);
+            count.order(ByteOrder.LITTLE_ENDIAN);
+            count.putShort(msgCount);
+            count.flip();
+            long position = COUNT_POSITION;
+            while (count.hasRemaining()) {
+                position += channel.write(count, position);
+            }
         }
         catch (IOException iox) {
             System.out.println(iox);
         }
         finally {
-            if (toc != null) { 
-                try { toc.close(); } 
-                catch (IOException iox) {}
+            // Close file output stream.
+            try {
+                out.close();
             }
+            catch (IOException iox) {
+                System.out.println(iox);
+            }
+            channel = null;
         }
     }
         
@@ -238,25 +204,44 @@ public class TocFile {
         close();
         super.finalize();
     }
-    
-    /** Converts short value to little-endian byte array.
+
+    /** Makes room in buffer for the specified number of bytes, writing
+     *  buffered bytes to the file if necessary.
+     */
+    private void reserve(int length) throws IOException {
+        if (channel == null) {
+            throw new IOException("TOC file not open");
+        }
+        if (buffer.remaining() < length) {
+            drain();
+        }
+    }
+
+    /** Writes all bytes in buffer to the file.
      */
-    private byte[] shortToByte(short value) {
-        byte[] result = new byte[2];
-        result[0] = (byte)((value << 8) >>> 8);
-        result[1] = (byte)(value >>> 8);
-        return result;
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
     }
-    
-    /** Converts int value to little-endian byte array.
+
+    /** Puts string bytes in buffer, cut or padded with zeros to the
+     *  specified length.
      */
-    private byte[] intToByte(int value) {
-        byte[] result = new byte[4];
-        result[0] = (byte)((value << 24) >>> 24);
-        result[1] = (byte)((value << 16) >>> 24);
-        result[2] = (byte)((value << 8) >>> 24);
-        result[3] = (byte)(value >>> 24);
-        return result;
+    private void putString(String value, int length) {
+        byte[] byteBuf = value.getBytes();
+        int count = Math.min(byteBuf.length, length);
+        buffer.put(byteBuf, 0, count);
+        putZeros(length - count);
     }
-}
 
+    /** Puts zero bytes in buffer.
+     */
+    private void putZeros(int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte)0);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.nio.ByteBuffer;
+
+/**
+ *  Holds a list of document numbers as compressed bytes.  Each number is
+ *  stored as the difference from the previous number, in a
+ *  variable-length int of 7 bits per byte.  Documents must be added in
+ *  increasing order.
+ *
+ *  @author Ernie Yu
+ */
+class DocList {
+
+    private byte[] bytes;
+    private int size;
+    private int lastDoc;
+
+    /** Creates a new, empty instance of DocList.
+     */
+    DocList() {
+        bytes = new byte[8];
+        size = 0;
+        lastDoc = 0;
+    }
+
+    /**
+     *  Adds document number to list.
+     */
+    void add(int doc) {
+        if (size + 5 > bytes.length) {
+            byte[] newBytes = new byte[bytes.length * 2];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+        int value = doc - lastDoc;
+        while ((value & ~0x7f) != 0) {
+            bytes[size++] = (byte)((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte)value;
+        lastDoc = doc;
+    }
+
+    /** Returns array holding list bytes.  Only the first size() bytes are
+     *  used.
+     */
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    /** Returns number of list bytes.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     *  Reads document numbers from the specified bytes of the buffer.  The
+     *  buffer is not changed.
+     */
+    static int[] read(ByteBuffer buffer, int start, int end) {
+        int[] docs = new int[Math.max(end - start, 1)];
+        int count = 0;
+        int doc = 0;
+        int pos = start;
+        while (pos < end) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            doc += value;
+            docs[count++] = doc;
+        }
+        int[] result = new int[count];
+        System.arraycopy(docs, 0, result, 0, count);
+        return result;
+    }
+
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32;
+import pfc.cab.*;
+
+/**
+ *  Creates or updates the search index file for a cabinet.  If the index
+ *  file matches the cabinet, nothing is done.  Otherwise, mail messages
+ *  that are unchanged since the index file was written keep their
+ *  postings, and only new or changed messages are read and split into
+ *  words.  This class implements Runnable and may be passed into a thread
+ *  for execution.
+ *
+ *  @author Ernie Yu
+ */
+public class IndexBuilder implements Runnable {
+
+    // number of positions skipped between message fields, so that a
+    // phrase does not match across two fields
+    private static final int FIELD_GAP = 1;
+
+    private Cabinet cabinet;
+    private SearchIndex index;
+    private int progressPct;
+    private int parseCount;
+    private Exception exception;
+
+    // Words of new messages.
+    private HashMap entries;
+    private ArrayList docEntries;
+
+    /**
+     *  Constructor.
+     *  @param cabinet cabinet to index
+     *  @param index search index for cabinet file
+     */
+    public IndexBuilder(Cabinet cabinet, SearchIndex index) {
+        this.cabinet = cabinet;
+        this.index = index;
+        progressPct = 0;
+        parseCount = 0;
+        exception = null;
+    }
+
+    /**
+     *  Returns index build progress as percentage of cabinet items.
+     */
+    public int getProgressPct() {
+        return progressPct;
+    }
+
+    /**
+     *  Returns number of mail messages read and split into words.  Returns
+     *  zero if the index file was already current.
+     */
+    public int getParseCount() {
+        return parseCount;
+    }
+
+    /**
+     *  Returns index build exception, if any.  Returns null if process
+     *  completed successfully.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     *  Executes when thread is started.  Reads mail messages and writes
+     *  search index file, then opens the new index file.
+     */
+    public void run() {
+        try {
+            if (!index.isOpen()) {
+                index.open();
+            }
+            if (!index.isCurrent()) {
+                build();
+            }
+            progressPct = 100;
+        }
+        catch (IOException iox) {
+            exception = iox;
+        }
+        catch (RuntimeException rex) {
+            // Message could not be parsed.
+            exception = rex;
+        }
+        finally {
+            entries = null;
+            docEntries = null;
+        }
+    }
+
+    /**
+     *  Reads mail messages in cabinet, and writes new index file.
+     */
+    private void build() throws IOException {
+        // Remember cabinet file before reading messages.
+        File pfcFile = index.getCabinetFile();
+        long cabinetLength = pfcFile.length();
+        long cabinetModified = pfcFile.lastModified();
+
+        ItemTable table = cabinet.getItemTable();
+        int size = table.size();
+        int oldCount = index.getDocCount();
+        int[] oldToNew = new int[oldCount];
+        Arrays.fill(oldToNew, -1);
+        int oldDoc = 0;
+
+        int[] docItems = new int[1024];
+        int[] docAddresses = new int[1024];
+        int[] docLengths = new int[1024];
+        int[] docChecks = new int[1024];
+        int docCount = 0;
+        entries = new HashMap();
+        docEntries = new ArrayList();
+        CRC32 crc = new CRC32();
+
+        for (int i = 0; i < size; i++) {
+            progressPct = (int)(90L * i / size);
+            if (table.getType(i) != CabinetItem.MAIL_DATA) {
+                continue;
+            }
+            byte[] content = cabinet.getCabinetItem(i).getContent();
+            if (content == null) {
+                content = new byte[0];
+            }
+            crc.reset();
+            crc.update(content);
+            int check = (int)crc.getValue();
+
+            // Add message to document table.
+            if (docCount == docItems.length) {
+                docItems = SearchIndex.grow(docItems);
+                docAddresses = SearchIndex.grow(docAddresses);
+                docLengths = SearchIndex.grow(docLengths);
+                docChecks = SearchIndex.grow(docChecks);
+            }
+            int doc = docCount++;
+            docItems[doc] = i;
+            docAddresses[doc] = table.getAddress(i);
+            docLengths[doc] = content.length;
+            docChecks[doc] = check;
+
+            // Keep old postings if message is unchanged.
+            while ((oldDoc < oldCount) && (index.getDocItem(oldDoc) < i)) {
+                oldDoc++;
+            }
+            if ((oldDoc < oldCount) && (index.getDocItem(oldDoc) == i) &&
+                (index.getDocAddress(oldDoc) == docAddresses[doc]) &&
+                (index.getDocLength(oldDoc) == content.length) &&
+                (index.getDocCheck(oldDoc) == check)) {
+                oldToNew[oldDoc] = doc;
+            }
+            else {
+                addMessage(doc, new MailMessage(content, true));
+                parseCount++;
+            }
+        }
+
+        writeIndex(cabinetLength, cabinetModified, docCount, docItems,
+            docAddresses, docLengths, docChecks, oldToNew);
+        progressPct = 95;
+        index.open();
+    }
+
+    /**
+     *  Adds words of mail message to postings.
+     */
+    private void addMessage(int doc, MailMessage message) {
+        int pos = addText(message.getSubject(), false, 0);
+        pos = addText(message.getFrom(), false, pos + FIELD_GAP);
+        pos = addText(message.getTo(), false, pos + FIELD_GAP);
+        addText(message.getBodyText(), true, pos + FIELD_GAP);
+
+        // Add posting for each word found in message.
+        for (int i = 0; i < docEntries.size(); i++) {
+            WordEntry entry = (WordEntry)docEntries.get(i);
+            entry.postings.add(doc, entry.positions, entry.count);
+            entry.count = 0;
+        }
+        docEntries.clear();
+    }
+
+    /**
+     *  Adds words of text starting at the specified position, and returns
+     *  the position after the last word.
+     */
+    private int addText(String text, boolean skipTags, int pos) {
+        Tokenizer tokenizer = new Tokenizer(text, skipTags);
+        String word = tokenizer.next();
+        while (word != null) {
+            WordEntry entry = (WordEntry)entries.get(word);
+            if (entry == null) {
+                entry = new WordEntry();
+                entries.put(word, entry);
+            }
+            if (entry.count == 0) {
+                docEntries.add(entry);
+            }
+            entry.addPosition(pos++);
+            word = tokenizer.next();
+        }
+        return pos;
+    }
+
+    /**
+     *  Writes index file.  The postings of each word are merged from the
+     *  old index file and the new messages.  The index is written to a
+     *  temporary file first, which then replaces the old index file.  The
+     *  old postings are read without mapping the old file, so it may be
+     *  replaced on systems that do not allow a mapped file to be deleted.
+     */
+    private void writeIndex(long cabinetLength, long cabinetModified,
+        int docCount, int[] docItems, int[] docAddresses, int[] docLengths,
+        int[] docChecks, int[] oldToNew) throws IOException {
+
+        File indexFile = index.getFile();
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        RandomAccessFile file = null;
+        DataInputStream oldIn = null;
+        try {
+            file = new RandomAccessFile(tempFile, "rw");
+            file.setLength(0L);
+            FileChannel channel = file.getChannel();
+            OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(file.getFD()), 65536);
+
+            // Leave room for header, and write document table.
+            out.write(new byte[SearchIndex.HEADER_SIZE]);
+            byte[] row = new byte[SearchIndex.DOC_SIZE];
+            ByteBuffer rowBuffer = ByteBuffer.wrap(row);
+            rowBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < docCount; i++) {
+                rowBuffer.clear();
+                rowBuffer.putInt(docItems[i]);
+                rowBuffer.putInt(docAddresses[i]);
+                rowBuffer.putInt(docLengths[i]);
+                rowBuffer.putInt(docChecks[i]);
+                out.write(row);
+            }
+            long dictStart = SearchIndex.HEADER_SIZE +
+                (long)SearchIndex.DOC_SIZE * docCount;
+
+            // Sort new words.
+            String[] newWords = (String[])entries.keySet().toArray(
+                new String[entries.size()]);
+            Arrays.sort(newWords);
+
+            // Merge old and new words in order, and write postings.
+            ByteArrayOutputStream dict = new ByteArrayOutputStream();
+            PostingBuffer merged = new PostingBuffer();
+            int wordCount = 0;
+            int oldWordCount = index.getWordCount();
+            if (oldWordCount > 0) {
+                oldIn = index.openPostings();
+            }
+            int oldWord = 0;
+            int newWord = 0;
+            while ((oldWord < oldWordCount) || (newWord < newWords.length)) {
+                String word;
+                PostingReader oldPostings = null;
+                PostingReader newPostings = null;
+                int compare = (oldWord >= oldWordCount) ? 1 :
+                    (newWord >= newWords.length) ? -1 :
+                    index.getWord(oldWord).compareTo(newWords[newWord]);
+                if (compare <= 0) {
+                    word = index.getWord(oldWord);
+                    oldPostings = index.readPostings(oldIn, oldWord++);
+                }
+                else {
+                    word = newWords[newWord];
+                }
+                if (compare >= 0) {
+                    word = newWords[newWord];
+                    PostingBuffer postings =
+                        ((WordEntry)entries.get(newWords[newWord++])).postings;
+                    newPostings = new PostingReader(ByteBuffer.wrap(
+                        postings.getBytes()), 0, postings.size());
+                }
+
+                merged.clear();
+                merge(oldPostings, oldToNew, newPostings, merged);
+                if (merged.getDocCount() > 0) {
+                    out.write(merged.getBytes(), 0, merged.size());
+                    dictStart += merged.size();
+                    byte[] wordBytes = word.getBytes("UTF-8");
+                    writeInt(dict, wordBytes.length);
+                    dict.write(wordBytes);
+                    writeInt(dict, merged.getDocCount());
+                    writeInt(dict, merged.size());
+                    wordCount++;
+                }
+            }
+            if (oldIn != null) {
+                oldIn.close();
+                oldIn = null;
+            }
+            dict.writeTo(out);
+            out.flush();
+
+            // Write header.
+            ByteBuffer header = ByteBuffer.allocate(SearchIndex.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.put(SearchIndex.INDEX_ID);
+            header.putLong(cabinetLength);
+            header.putLong(cabinetModified);
+            header.putInt(docCount);
+            header.putInt(wordCount);
+            header.putLong(dictStart);
+            header.rewind();
+            long position = 0L;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            file.close();
+            file = null;
+
+            // Replace existing index file.
+            index.close();
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+                throw new IOException("Could not write index file " +
+                    indexFile.getPath());
+            }
+        }
+        finally {
+            if (oldIn != null) {
+                try { oldIn.close(); }
+                catch (IOException iox) {}
+            }
+            if (file != null) {
+                try { file.close(); }
+                catch (IOException iox) {}
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     *  Merges old postings of unchanged messages with new postings.  Old
+     *  document numbers are converted to new numbers, and removed or
+     *  changed messages are dropped.
+     */
+    private static void merge(PostingReader oldPostings, int[] oldToNew,
+        PostingReader newPostings, PostingBuffer merged) {
+        boolean hasOld = nextOld(oldPostings, oldToNew);
+        boolean hasNew = (newPostings != null) && newPostings.next();
+        while (hasOld || hasNew) {
+            if (hasOld && (!hasNew ||
+                (oldToNew[oldPostings.getDoc()] < newPostings.getDoc()))) {
+                merged.add(oldToNew[oldPostings.getDoc()],
+                    oldPostings.getPositions(), oldPostings.getCount());
+                hasOld = nextOld(oldPostings, oldToNew);
+            }
+            else {
+                merged.add(newPostings.getDoc(), newPostings.getPositions(),
+                    newPostings.getCount());
+                hasNew = newPostings.next();
+            }
+        }
+    }
+
+    /**
+     *  Moves to the next old posting that is kept in the new index.
+     */
+    private static boolean nextOld(PostingReader postings, int[] oldToNew) {
+        if (postings == null) {
+            return false;
+        }
+        while (postings.next()) {
+            if (oldToNew[postings.getDoc()] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *  Writes int value as a variable-length int.
+     */
+    private static void writeInt(OutputStream out, int value)
+        throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     *  Holds the postings of one word, and its positions in the current
+     *  message.
+     */
+    private static class WordEntry {
+        PostingBuffer postings = new PostingBuffer();
+        int[] positions = new int[4];
+        int count = 0;
+
+        void addPosition(int pos) {
+            if (count == positions.length) {
+                positions = SearchIndex.grow(positions);
+            }
+            positions[count++] = pos;
+        }
+    }
+
+}
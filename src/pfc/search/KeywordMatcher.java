@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.util.*;
+
+/**
+ *  Finds all occurrences of a list of keywords in text, in one pass over
+ *  the text.  The keywords are compiled into an Aho-Corasick automaton,
+ *  with a full transition table over the characters used by the
+ *  keywords.  Keywords are matched without regard to case.  Bytes are
+ *  matched as ISO-8859-1 characters.  Once created, a matcher may be used
+ *  by several threads at the same time.
+ *
+ *  @author Ernie Yu
+ */
+public class KeywordMatcher {
+
+    private String[] keywords;
+    private int[] keywordLength;
+
+    // Automaton tables.
+    private short[] charClass;      // character class of each character
+    private int classCount;         // number of character classes
+    private int[] next;             // next state by state and class
+    private int[] output;           // keyword ending at state, or -1
+    private int[] outputLink;       // next state on suffix chain with output
+
+    /**
+     *  Constructor.  Empty keywords are ignored, and only the first of any
+     *  duplicate keywords is reported.
+     *  @param keywords keywords to find
+     */
+    public KeywordMatcher(String[] keywords) {
+        this.keywords = (String[])keywords.clone();
+        keywordLength = new int[keywords.length];
+
+        // Assign a class to each character used by the keywords.  Class
+        // zero is for all other characters.
+        charClass = new short[Character.MAX_VALUE + 1];
+        classCount = 1;
+        int maxStates = 1;
+        for (int k = 0; k < keywords.length; k++) {
+            String keyword = TrigramIndex.foldCase(keywords[k]);
+            keywordLength[k] = keyword.length();
+            maxStates += keyword.length();
+            for (int i = 0; i < keyword.length(); i++) {
+                char chr = keyword.charAt(i);
+                if (charClass[chr] == 0) {
+                    charClass[chr] = (short)classCount++;
+                }
+            }
+        }
+        // Map characters of other case to the same class.
+        for (int chr = 0; chr <= Character.MAX_VALUE; chr++) {
+            char folded = TrigramIndex.foldCase((char)chr);
+            if ((folded != chr) && (charClass[folded] != 0)) {
+                charClass[chr] = charClass[folded];
+            }
+        }
+
+        // Build trie of keywords.
+        next = new int[maxStates * classCount];
+        output = new int[maxStates];
+        Arrays.fill(output, -1);
+        int stateCount = 1;
+        for (int k = 0; k < keywords.length; k++) {
+            String keyword = TrigramIndex.foldCase(keywords[k]);
+            if (keyword.length() == 0) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int index = state * classCount + charClass[keyword.charAt(i)];
+                if (next[index] == 0) {
+                    next[index] = stateCount++;
+                }
+                state = next[index];
+            }
+            if (output[state] < 0) {
+                output[state] = k;
+            }
+        }
+        if (stateCount < maxStates) {
+            int[] newNext = new int[stateCount * classCount];
+            System.arraycopy(next, 0, newNext, 0, newNext.length);
+            next = newNext;
+            int[] newOutput = new int[stateCount];
+            System.arraycopy(output, 0, newOutput, 0, stateCount);
+            output = newOutput;
+        }
+
+        // Visit states in order of depth, and fill in missing transitions
+        // from the longest suffix state.
+        int[] fail = new int[stateCount];
+        outputLink = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < classCount; c++) {
+            if (next[c] != 0) {
+                queue[tail++] = next[c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            int failState = fail[state];
+            outputLink[state] = (output[failState] >= 0) ?
+                failState : outputLink[failState];
+            for (int c = 0; c < classCount; c++) {
+                int index = state * classCount + c;
+                int child = next[index];
+                if (child != 0) {
+                    fail[child] = next[failState * classCount + c];
+                    queue[tail++] = child;
+                } else {
+                    next[index] = next[failState * classCount + c];
+                }
+            }
+        }
+    }
+
+    /** Returns number of keywords.
+     */
+    public int getKeywordCount() {
+        return keywords.length;
+    }
+
+    /** Returns keyword at the specified number.
+     */
+    public String getKeyword(int keyword) {
+        return keywords[keyword];
+    }
+
+    /**
+     *  Finds keywords in text, and passes each one to the listener.
+     *  @param item item index passed to listener
+     *  @param text text to search
+     *  @param listener listener to receive keywords
+     */
+    public void match(int item, String text, KeywordListener listener) {
+        scan(item, text, 0, 0, listener);
+    }
+
+    /**
+     *  Finds keywords in bytes, and passes each one to the listener.
+     *  Offsets are relative to the offset argument.
+     *  @param item item index passed to listener
+     *  @param data array holding text bytes
+     *  @param offset index of first byte
+     *  @param length number of bytes
+     *  @param listener listener to receive keywords
+     */
+    public void match(int item, byte[] data, int offset, int length,
+        KeywordListener listener) {
+        scan(item, data, offset, length, 0, 0, listener);
+    }
+
+    /**
+     *  Continues scan of text in the specified state, and returns the
+     *  state at the end of the text.
+     *  @param base offset of text within whole text
+     */
+    int scan(int item, String text, int state, int base,
+        KeywordListener listener) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = next[state * classCount + charClass[text.charAt(i)]];
+            if ((output[state] >= 0) || (outputLink[state] != 0)) {
+                report(item, state, base + i + 1, listener);
+            }
+        }
+        return state;
+    }
+
+    /**
+     *  Continues scan of bytes in the specified state, and returns the
+     *  state at the end of the bytes.
+     *  @param base offset of first byte within whole text
+     */
+    int scan(int item, byte[] data, int offset, int length, int state,
+        int base, KeywordListener listener) {
+        for (int i = 0; i < length; i++) {
+            state = next[state * classCount +
+                charClass[data[offset + i] & 0xff]];
+            if ((output[state] >= 0) || (outputLink[state] != 0)) {
+                report(item, state, base + i + 1, listener);
+            }
+        }
+        return state;
+    }
+
+    /**
+     *  Reports all keywords that end at the specified state.
+     *  @param end offset after last keyword character
+     */
+    private void report(int item, int state, int end,
+        KeywordListener listener) {
+        if (output[state] < 0) {
+            state = outputLink[state];
+        }
+        while (state != 0) {
+            int keyword = output[state];
+            listener.keywordFound(item, keyword, end - keywordLength[keyword]);
+            state = outputLink[state];
+        }
+    }
+
+}
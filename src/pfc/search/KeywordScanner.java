@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import pfc.cab.*;
+
+/**
+ *  Finds keywords in the body of every mail message in a cabinet.  Mail
+ *  messages are read in batches.  Within a batch, ranges of messages are
+ *  claimed by worker threads, which pass each message body through the
+ *  KeywordMatcher; the keywords found are then passed to the listener in
+ *  message order on the calling thread.  This class implements Runnable
+ *  and may be passed into a thread for execution.
+ *
+ *  @author Ernie Yu
+ */
+public class KeywordScanner implements Runnable {
+
+    // number of messages read before their keywords are reported
+    private static final int BATCH_SIZE = 8192;
+
+    // number of messages claimed by a worker at one time
+    private static final int RANGE_SIZE = 64;
+
+    private Cabinet cabinet;
+    private KeywordMatcher matcher;
+    private KeywordListener listener;
+    private int threadCount;
+    private boolean rawBodies;
+    private int messageCount;
+    private int progressPct;
+    private Exception exception;
+
+    // Shared state for workers.
+    private int[] docItems;
+    private int[][] batchHits;
+    private int batchStart;
+    private int batchEnd;
+    private int nextDoc;
+    private Throwable workException;
+
+    /**
+     *  Constructor.
+     *  @param cabinet cabinet to scan
+     *  @param matcher matcher holding keywords to find
+     *  @param listener listener to receive keywords found
+     */
+    public KeywordScanner(Cabinet cabinet, KeywordMatcher matcher,
+        KeywordListener listener) {
+        this.cabinet = cabinet;
+        this.matcher = matcher;
+        this.listener = listener;
+        threadCount = 1;
+        rawBodies = false;
+        messageCount = 0;
+        progressPct = 0;
+        exception = null;
+    }
+
+    /** Sets number of threads used to read mail messages.  The default
+     *  is one, which reads all messages on the thread calling run().
+     */
+    public void setThreadCount(int count) {
+        threadCount = Math.max(count, 1);
+    }
+
+    /** Sets option to scan the bytes of pre-V7 message bodies directly,
+     *  without converting them to strings.  Each byte is matched as one
+     *  ISO-8859-1 character, while MailMessage converts body text with
+     *  the platform default charset.  So raw bodies give the same
+     *  keywords and offsets only if isRawExact() returns true.  V7
+     *  message bodies are always uncompressed and converted to strings.
+     *  The default is false.
+     */
+    public void setRawBodies(boolean raw) {
+        rawBodies = raw;
+    }
+
+    /**
+     *  Returns true if the platform default charset converts every byte
+     *  to the ISO-8859-1 character of the same value.  Scanning raw 
+     *  bodies then finds the same keywords and offsets as scanning the
+     *  converted bodies.
+     */
+    public static boolean isRawExact() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)i;
+        }
+        String text = new String(bytes);
+        if (text.length() != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (text.charAt(i) != (char)i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  Returns number of mail messages scanned.
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     *  Returns scan progress as percentage of mail messages.
+     */
+    public int getProgressPct() {
+        return progressPct;
+    }
+
+    /**
+     *  Returns scan exception, if any.  Returns null if process completed
+     *  successfully.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     *  Executes when thread is started.  Scans all mail messages, and
+     *  passes keywords found to the listener.
+     */
+    public void run() {
+        try {
+            scan();
+            progressPct = 100;
+        }
+        catch (RuntimeException rex) {
+            exception = rex;
+        }
+        finally {
+            docItems = null;
+            batchHits = null;
+        }
+    }
+
+    /**
+     *  Scans mail messages in batches.
+     */
+    private void scan() {
+        // Find mail data items.
+        ItemTable table = cabinet.getItemTable();
+        int size = table.size();
+        int docCount = 0;
+        docItems = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (table.getType(i) == CabinetItem.MAIL_DATA) {
+                docItems[docCount++] = i;
+            }
+        }
+
+        batchHits = new int[BATCH_SIZE][];
+        for (batchStart = 0; batchStart < docCount; batchStart += BATCH_SIZE) {
+            batchEnd = Math.min(batchStart + BATCH_SIZE, docCount);
+            readBatch();
+
+            // Report keywords in message order.
+            for (int doc = batchStart; doc < batchEnd; doc++) {
+                int[] hits = batchHits[doc - batchStart];
+                for (int i = 1; i < hits[0]; i += 2) {
+                    listener.keywordFound(docItems[doc], hits[i], hits[i + 1]);
+                }
+                batchHits[doc - batchStart] = null;
+            }
+            messageCount = batchEnd;
+            progressPct = (int)(100L * batchEnd / docCount);
+        }
+    }
+
+    /**
+     *  Scans all messages in the current batch.  If more than one thread
+     *  is used, the messages are divided into ranges that are claimed by
+     *  worker threads.
+     */
+    private void readBatch() {
+        nextDoc = batchStart;
+        workException = null;
+        int workers = Math.min(threadCount,
+            (batchEnd - batchStart + RANGE_SIZE - 1) / RANGE_SIZE);
+        if (workers <= 1) {
+            // Scan all messages on the current thread.
+            new MessageReader().run();
+        }
+        else {
+            // Start worker threads, and wait for them to finish.
+            Thread[] threads = new Thread[workers];
+            for (int t = 0; t < workers; t++) {
+                threads[t] = new Thread(new MessageReader(), "KeywordScanner-" + t);
+                threads[t].start();
+            }
+            for (int t = 0; t < workers; t++) {
+                while (threads[t].isAlive()) {
+                    try { threads[t].join(); }
+                    catch (InterruptedException iex) {}
+                }
+            }
+        }
+
+        // Report first problem found by any worker.
+        if (workException instanceof RuntimeException) {
+            throw (RuntimeException)workException;
+        }
+        else if (workException instanceof Error) {
+            throw (Error)workException;
+        }
+    }
+
+    /**
+     *  Returns first document of the next range to scan, or -1 if there
+     *  are no more documents in the batch.
+     */
+    private synchronized int nextRange() {
+        if ((workException != null) || (nextDoc >= batchEnd)) {
+            return -1;
+        }
+        int start = nextDoc;
+        nextDoc += RANGE_SIZE;
+        return start;
+    }
+
+    /**
+     *  Saves the first exception thrown by a worker, and stops the others.
+     */
+    private synchronized void fail(Throwable ex) {
+        if (workException == null) {
+            workException = ex;
+        }
+    }
+
+    /**
+     *  Scans ranges of messages until none remain in the batch.  The
+     *  keywords found in each message are saved as pairs of keyword and
+     *  offset, after a count of the used array values.
+     */
+    private class MessageReader implements Runnable, KeywordListener,
+        RecordVisitor {
+
+        private int[] hits;
+        private int state;
+        private int base;
+        private int item;
+
+        public void run() {
+            try {
+                int start = nextRange();
+                while (start >= 0) {
+                    int end = Math.min(start + RANGE_SIZE, batchEnd);
+                    for (int doc = start; doc < end; doc++) {
+                        scanMessage(doc);
+                    }
+                    start = nextRange();
+                }
+            }
+            catch (RuntimeException rex) {
+                fail(rex);
+            }
+            catch (Error err) {
+                // Report the error instead of leaving the results of the
+                // range missing.
+                fail(err);
+            }
+            finally {
+                // End idle inflaters before the thread finishes.
+                InflaterPool.clear();
+            }
+        }
+
+        /**
+         *  Finds keywords in message body, and saves them for the batch.
+         */
+        private void scanMessage(int doc) {
+            item = docItems[doc];
+            hits = new int[8];
+            hits[0] = 1;
+            byte[] content = cabinet.getCabinetItem(item).getContent();
+            if (content != null) {
+                MailMessage message = new MailMessage(content, true);
+                state = 0;
+                base = 0;
+                if (!rawBodies || !message.visitBodyBytes(this)) {
+                    matcher.match(item, message.getBody(), this);
+                }
+            }
+            batchHits[doc - batchStart] = hits;
+        }
+
+        public void keywordFound(int item, int keyword, int offset) {
+            if (hits[0] + 2 > hits.length) {
+                int[] newHits = new int[hits.length * 2];
+                System.arraycopy(hits, 0, newHits, 0, hits[0]);
+                hits = newHits;
+            }
+            hits[hits[0]] = keyword;
+            hits[hits[0] + 1] = offset;
+            hits[0] += 2;
+        }
+
+        public boolean onBlockStart(byte[] buffer, int offset, int length) {
+            return true;
+        }
+
+        public boolean onSubItem(short id, byte type, byte[] data,
+            int offset, int length) {
+            // Continue scan across body text subitems.
+            state = matcher.scan(item, data, offset, length, state, base,
+                this);
+            base += length;
+            return true;
+        }
+
+        public boolean onBlockEnd() {
+            return true;
+        }
+    }
+
+}
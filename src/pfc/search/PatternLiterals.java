@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+/**
+ *  Finds the literal text that every match of a regular expression must
+ *  contain.  Only runs of plain characters outside of groups and
+ *  character classes are used.  If the expression has alternatives at
+ *  the top level, or uses flags that change how characters match, no
+ *  literals are returned, and every message must be checked.
+ *
+ *  @author Ernie Yu
+ */
+class PatternLiterals {
+
+    private String regex;
+    private ArrayList literals;
+    private StringBuffer run;
+
+    /**
+     *  Constructor.
+     *  @param regex regular expression
+     */
+    private PatternLiterals(String regex) {
+        this.regex = regex;
+        literals = new ArrayList();
+        run = new StringBuffer();
+    }
+
+    /**
+     *  Returns literal text that must be found in every match of the
+     *  pattern.  Returns an empty array if no such text is known.
+     */
+    static String[] getLiterals(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return new String[0];
+        }
+        PatternLiterals parser = new PatternLiterals(pattern.pattern());
+        if (!parser.parse()) {
+            return new String[0];
+        }
+        return (String[])parser.literals.toArray(
+            new String[parser.literals.size()]);
+    }
+
+    /**
+     *  Collects literal runs.  Returns false if the expression has
+     *  alternatives at the top level, or embedded flags that allow
+     *  comments.
+     */
+    private boolean parse() {
+        int length = regex.length();
+        int depth = 0;          // group nesting
+        int classDepth = 0;     // character class nesting
+        boolean lastLiteral = false;
+        int i = 0;
+        while (i < length) {
+            char chr = regex.charAt(i);
+
+            // Quoted text.
+            if ((chr == '\\') && (i + 1 < length) &&
+                (regex.charAt(i + 1) == 'Q')) {
+                int end = regex.indexOf("\\E", i + 2);
+                if (end < 0) { end = length; }
+                if ((depth == 0) && (classDepth == 0)) {
+                    run.append(regex.substring(i + 2, end));
+                    lastLiteral = (end > i + 2);
+                }
+                i = end + 2;
+                continue;
+            }
+
+            // Skip contents of character classes and groups.
+            if ((chr == '\\') && ((classDepth > 0) || (depth > 0))) {
+                i = escapeEnd(i);
+                continue;
+            }
+            if (classDepth > 0) {
+                if (chr == '[') {
+                    classDepth++;
+                } else if (chr == ']') {
+                    classDepth--;
+                }
+                i++;
+                continue;
+            }
+            if (chr == '[') {
+                endRun();
+                lastLiteral = false;
+                classDepth++;
+                i++;
+                continue;
+            }
+            if (depth > 0) {
+                if (chr == '(') {
+                    depth++;
+                } else if (chr == ')') {
+                    depth--;
+                }
+                i++;
+                continue;
+            }
+
+            switch (chr) {
+            case '\\':
+                int next = escapeEnd(i);
+                if ((next == i + 2) &&
+                    !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    run.append(regex.charAt(i + 1));
+                    lastLiteral = true;
+                } else {
+                    // Escape for a class, boundary, back reference, or
+                    // character given by its code.
+                    endRun();
+                    lastLiteral = false;
+                }
+                i = next;
+                break;
+            case '|':
+                return false;
+            case '(':
+                if (regex.startsWith("(?", i) && hasCommentFlag(i + 2)) {
+                    return false;
+                }
+                endRun();
+                lastLiteral = false;
+                depth++;
+                i++;
+                break;
+            case '?':
+            case '*':
+            case '{':
+                // Previous character may be missing.
+                if (lastLiteral) {
+                    run.setLength(run.length() - 1);
+                }
+                endRun();
+                lastLiteral = false;
+                if (chr == '{') {
+                    int end = regex.indexOf('}', i);
+                    i = (end < 0) ? length : end;
+                }
+                i = skipModifier(i + 1);
+                break;
+            case '+':
+                endRun();
+                lastLiteral = false;
+                i = skipModifier(i + 1);
+                break;
+            case '.':
+            case '^':
+            case '$':
+                endRun();
+                lastLiteral = false;
+                i++;
+                break;
+            default:
+                run.append(chr);
+                lastLiteral = true;
+                i++;
+            }
+        }
+        endRun();
+        return true;
+    }
+
+    /**
+     *  Returns true if the embedded flags starting at the specified index
+     *  turn on comments.
+     */
+    private boolean hasCommentFlag(int start) {
+        for (int i = start; i < regex.length(); i++) {
+            char chr = regex.charAt(i);
+            if (chr == 'x') {
+                return true;
+            } else if (!Character.isLetter(chr) && (chr != '-')) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *  Returns the index after the escape starting with the backslash at
+     *  the specified index.  Escapes that name a character by its code,
+     *  a control character, a back reference or a property are read in
+     *  full, so none of their characters are taken as literals.
+     */
+    private int escapeEnd(int start) {
+        int length = regex.length();
+        int i = start + 1;
+        if (i >= length) {
+            return length;
+        }
+        char chr = regex.charAt(i++);
+        switch (chr) {
+        case '0':
+            // Octal value of up to three digits.
+            for (int n = 0; (n < 3) && (i < length) &&
+                (regex.charAt(i) >= '0') && (regex.charAt(i) <= '7'); n++) {
+                i++;
+            }
+            break;
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+            // Back reference; any digits may be part of the group number.
+            while ((i < length) && Character.isDigit(regex.charAt(i))) {
+                i++;
+            }
+            break;
+        case 'x':
+            i = (i < length) && (regex.charAt(i) == '{') ?
+                closeIndex(i, '}') : Math.min(i + 2, length);
+            break;
+        case 'u':
+            i = Math.min(i + 4, length);
+            break;
+        case 'c':
+            i = Math.min(i + 1, length);
+            break;
+        case 'k':
+            if ((i < length) && (regex.charAt(i) == '<')) {
+                i = closeIndex(i, '>');
+            }
+            break;
+        case 'p':
+        case 'P':
+        case 'N':
+            if ((i < length) && (regex.charAt(i) == '{')) {
+                i = closeIndex(i, '}');
+            } else if (chr != 'N') {
+                i = Math.min(i + 1, length);
+            }
+            break;
+        default:
+            // Single character escape.
+        }
+        return i;
+    }
+
+    /**
+     *  Returns the index after the first close character following the
+     *  specified index, or the end of the expression if there is none.
+     */
+    private int closeIndex(int index, char close) {
+        int end = regex.indexOf(close, index);
+        return (end < 0) ? regex.length() : end + 1;
+    }
+
+    /**
+     *  Returns the index after a lazy or possessive quantifier modifier.
+     */
+    private int skipModifier(int index) {
+        if ((index < regex.length()) &&
+            ((regex.charAt(index) == '?') || (regex.charAt(index) == '+'))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     *  Saves the current run if it is long enough to narrow a search.
+     */
+    private void endRun() {
+        if (run.length() >= TrigramIndex.GRAM_LENGTH) {
+            literals.add(TrigramIndex.foldCase(run.toString()));
+        }
+        run.setLength(0);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+/**
+ *  Holds the postings of one word as compressed bytes.  Each posting
+ *  holds a document number, the number of times the word occurs in the
+ *  document, and the word positions.  Document numbers are stored as the
+ *  difference from the previous document, and positions as the
+ *  difference from the previous position, in variable-length ints of 7
+ *  bits per byte.  Documents must be added in increasing order.
+ *
+ *  @author Ernie Yu
+ */
+class PostingBuffer {
+
+    private byte[] bytes;
+    private int size;
+    private int lastDoc;
+    private int docCount;
+
+    /** Creates a new, empty instance of PostingBuffer.
+     */
+    PostingBuffer() {
+        bytes = new byte[16];
+        size = 0;
+        lastDoc = 0;
+        docCount = 0;
+    }
+
+    /**
+     *  Adds posting for the specified document.
+     *  @param doc document number
+     *  @param positions word positions in increasing order
+     *  @param count number of positions
+     */
+    void add(int doc, int[] positions, int count) {
+        writeInt(doc - lastDoc);
+        writeInt(count);
+        int last = 0;
+        for (int i = 0; i < count; i++) {
+            writeInt(positions[i] - last);
+            last = positions[i];
+        }
+        lastDoc = doc;
+        docCount++;
+    }
+
+    /** Returns array holding posting bytes.  Only the first size() bytes
+     *  are used.
+     */
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    /** Returns number of posting bytes.
+     */
+    int size() {
+        return size;
+    }
+
+    /** Returns number of documents in postings.
+     */
+    int getDocCount() {
+        return docCount;
+    }
+
+    /** Removes all postings, so the buffer can be reused.
+     */
+    void clear() {
+        size = 0;
+        lastDoc = 0;
+        docCount = 0;
+    }
+
+    /**
+     *  Appends int value as a variable-length int.
+     */
+    private void writeInt(int value) {
+        if (size + 5 > bytes.length) {
+            byte[] newBytes = new byte[Math.max(bytes.length * 2, size + 5)];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+        while ((value & ~0x7f) != 0) {
+            bytes[size++] = (byte)((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte)value;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.nio.ByteBuffer;
+
+/**
+ *  Reads the postings of one word written by PostingBuffer.  Call next()
+ *  to move to each posting in turn.
+ *
+ *  @author Ernie Yu
+ */
+class PostingReader {
+
+    private ByteBuffer buffer;
+    private int end;
+    private int doc;
+    private int count;
+    private int[] positions;
+
+    /**
+     *  Constructor.  The buffer is not changed.
+     *  @param buffer buffer holding postings
+     *  @param start index of first posting byte
+     *  @param end index after last posting byte
+     */
+    PostingReader(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer.duplicate();
+        this.buffer.position(start);
+        this.end = end;
+        doc = 0;
+        count = 0;
+        positions = new int[16];
+    }
+
+    /**
+     *  Moves to the next posting.  Returns false if there are no more
+     *  postings.
+     */
+    boolean next() {
+        if (buffer.position() >= end) {
+            return false;
+        }
+        doc += readInt();
+        count = readInt();
+        if (count > positions.length) {
+            positions = new int[Math.max(count, positions.length * 2)];
+        }
+        int last = 0;
+        for (int i = 0; i < count; i++) {
+            last += readInt();
+            positions[i] = last;
+        }
+        return true;
+    }
+
+    /** Returns document number of current posting.
+     */
+    int getDoc() {
+        return doc;
+    }
+
+    /** Returns number of positions in current posting.
+     */
+    int getCount() {
+        return count;
+    }
+
+    /** Returns word positions of current posting.  Only the first
+     *  getCount() values are used.
+     */
+    int[] getPositions() {
+        return positions;
+    }
+
+    /**
+     *  Reads variable-length int.
+     */
+    private int readInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
@@ -0,0 +1,570 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ *  Represents the search index file for a cabinet.  The index file holds
+ *  the words of the subject, from, to and body of every mail message, and
+ *  for each word, the messages and word positions where it occurs.  The
+ *  file is named &lt;cabinet&gt;.pfctxt and is kept in the cabinet
+ *  directory.  It is created and updated by IndexBuilder.
+ *  <p>
+ *  The file holds a header, a table of indexed mail items, the postings
+ *  of all words, and a dictionary of words in sorted order.  Postings are
+ *  compressed as described in PostingBuffer.  Once opened, the index may
+ *  be searched by several threads at the same time.
+ *  <p>
+ *  A query is a list of words, which must all occur in a message.  Words
+ *  in double quotes must occur together as a phrase.  Lists of words
+ *  separated by OR are alternatives.  For example: <BR>
+ *  <code>"new york" pizza OR bagels</code>
+ *
+ *  @author Ernie Yu
+ */
+public class SearchIndex {
+
+    public static final String INDEX_EXT = ".pfctxt";
+
+    static final byte[] INDEX_ID =
+        { 'P', 'F', 'C', 'T', 'X', 'T', '0', '1' };
+    static final int HEADER_SIZE = 40;
+    static final int DOC_SIZE = 16;
+
+    private static final String OR = "OR";
+
+    private File pfcFile;
+    private File indexFile;
+
+    // Contents of open index file.  Postings are mapped only if the index
+    // was current when opened.
+    private boolean opened;
+    private ByteBuffer buffer;
+    private long cabinetLength;
+    private long cabinetModified;
+    private int docCount;
+    private int[] docItems;         // item index of each document
+    private int[] docAddresses;     // item address of each document
+    private int[] docLengths;       // item length of each document
+    private int[] docChecks;        // checksum of item contents
+    private String[] words;         // words in sorted order
+    private int[] postingStart;     // start of postings for each word
+
+    /** Creates a new instance of SearchIndex.
+     *  @param pfcFile cabinet file
+     */
+    public SearchIndex(File pfcFile) {
+        this.pfcFile = pfcFile;
+        String indexName = pfcFile.getName();
+        // Remove cabinet file extension.
+        int lastDot = indexName.lastIndexOf(".");
+        if (lastDot > 0) {
+            indexName = indexName.substring(0, lastDot);
+        }
+        indexFile = new File(pfcFile.getParent(), indexName + INDEX_EXT);
+        close();
+    }
+
+    /** Returns File object representing index path and file name.
+     */
+    public File getFile() {
+        return indexFile;
+    }
+
+    /** Returns File object representing cabinet path and file name.
+     */
+    public File getCabinetFile() {
+        return pfcFile;
+    }
+
+    /**
+     *  Opens index file, and reads the item table and dictionary.  Returns
+     *  false if the index file does not exist or is damaged.
+     */
+    public boolean open() {
+        close();
+        if (!indexFile.exists()) {
+            return false;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(indexFile, "r");
+            long fileSize = file.length();
+            if ((fileSize < HEADER_SIZE) || (fileSize > Integer.MAX_VALUE)) {
+                return false;
+            }
+
+            // Check file id, and read header.  The tables are read with a
+            // plain read, and the postings are mapped only if the index
+            // matches the cabinet.  A stale index is replaced by
+            // IndexBuilder, and a mapped file cannot be deleted or
+            // replaced on some systems.
+            byte[] headerBytes = new byte[HEADER_SIZE];
+            file.readFully(headerBytes);
+            ByteBuffer header = ByteBuffer.wrap(headerBytes);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] id = new byte[INDEX_ID.length];
+            header.get(id);
+            for (int i = 0; i < id.length; i++) {
+                if (id[i] != INDEX_ID[i]) { return false; }
+            }
+            long length = header.getLong();
+            long modified = header.getLong();
+            int count = header.getInt();
+            int wordCount = header.getInt();
+            long dictStart = header.getLong();
+            long postStart = HEADER_SIZE + (long)DOC_SIZE * count;
+            if ((count < 0) || (wordCount < 0) || (dictStart < postStart) ||
+                (dictStart > fileSize)) {
+                return false;
+            }
+
+            // Read item table.
+            byte[] tableBytes = new byte[DOC_SIZE * count];
+            file.readFully(tableBytes);
+            ByteBuffer table = ByteBuffer.wrap(tableBytes);
+            table.order(ByteOrder.LITTLE_ENDIAN);
+            int[] items = new int[count];
+            int[] addresses = new int[count];
+            int[] lengths = new int[count];
+            int[] checks = new int[count];
+            for (int i = 0; i < count; i++) {
+                items[i] = table.getInt();
+                addresses[i] = table.getInt();
+                lengths[i] = table.getInt();
+                checks[i] = table.getInt();
+            }
+
+            // Read dictionary.
+            byte[] dictBytes = new byte[(int)(fileSize - dictStart)];
+            file.seek(dictStart);
+            file.readFully(dictBytes);
+            ByteBuffer dict = ByteBuffer.wrap(dictBytes);
+            String[] dictWords = new String[wordCount];
+            int[] starts = new int[wordCount + 1];
+            int start = (int)postStart;
+            for (int i = 0; i < wordCount; i++) {
+                byte[] wordBytes = new byte[readInt(dict)];
+                dict.get(wordBytes);
+                dictWords[i] = new String(wordBytes, "UTF-8");
+                readInt(dict);      // number of documents
+                starts[i] = start;
+                start += readInt(dict);
+            }
+            starts[wordCount] = start;
+            if (start != dictStart) {
+                return false;
+            }
+
+            // Map postings of a current index.
+            ByteBuffer map = null;
+            if ((length == pfcFile.length()) &&
+                (modified == pfcFile.lastModified())) {
+                map = file.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, 0, dictStart);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            opened = true;
+            buffer = map;
+            cabinetLength = length;
+            cabinetModified = modified;
+            docCount = count;
+            docItems = items;
+            docAddresses = addresses;
+            docLengths = lengths;
+            docChecks = checks;
+            words = dictWords;
+            postingStart = starts;
+            return true;
+        }
+        catch (IOException iox) {
+            return false;
+        }
+        catch (RuntimeException rex) {
+            // Index file is damaged.
+            return false;
+        }
+        finally {
+            if (file != null) {
+                try { file.close(); }
+                catch (IOException iox) {}
+            }
+        }
+    }
+
+    /** Returns true if the index file is open.
+     */
+    public boolean isOpen() {
+        return opened;
+    }
+
+    /** Returns true if the index file is open, and was built from the
+     *  cabinet file as it is now.
+     */
+    public boolean isCurrent() {
+        return isOpen() && (cabinetLength == pfcFile.length()) &&
+            (cabinetModified == pfcFile.lastModified());
+    }
+
+    /** Releases the contents of the index file.
+     */
+    public void close() {
+        opened = false;
+        buffer = null;
+        cabinetLength = 0L;
+        cabinetModified = 0L;
+        docCount = 0;
+        docItems = new int[0];
+        docAddresses = new int[0];
+        docLengths = new int[0];
+        docChecks = new int[0];
+        words = new String[0];
+        postingStart = new int[1];
+    }
+
+    /** Returns number of mail messages in index.
+     */
+    public int getDocCount() {
+        return docCount;
+    }
+
+    /** Returns number of distinct words in index.
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    /**
+     *  Returns item indexes of the mail data items that match the query,
+     *  in increasing order.
+     */
+    public int[] search(String query) {
+        int[] result = new int[0];
+        ArrayList terms = new ArrayList();
+        int pos = 0;
+        int length = query.length();
+        while (pos <= length) {
+            // Skip spaces.
+            while ((pos < length) && Character.isWhitespace(query.charAt(pos))) {
+                pos++;
+            }
+            String term = null;
+            boolean quoted = false;
+            if (pos >= length) {
+                pos++;
+            }
+            else if (query.charAt(pos) == '"') {
+                // Read phrase up to closing quote.
+                int end = query.indexOf('"', pos + 1);
+                if (end < 0) { end = length; }
+                term = query.substring(pos + 1, end);
+                quoted = true;
+                pos = end + 1;
+            }
+            else {
+                // Read word up to space or quote.
+                int end = pos;
+                while ((end < length) && (query.charAt(end) != '"') &&
+                       !Character.isWhitespace(query.charAt(end))) {
+                    end++;
+                }
+                term = query.substring(pos, end);
+                pos = end;
+            }
+
+            if ((term == null) || (!quoted && term.equals(OR))) {
+                // End of alternative; add matching documents to result.
+                if (terms.size() > 0) {
+                    result = union(result, findAll(terms));
+                    terms.clear();
+                }
+            }
+            else {
+                String[] phrase = split(term);
+                if (phrase.length > 0) {
+                    terms.add(phrase);
+                }
+            }
+        }
+
+        // Convert document numbers to item indexes.
+        for (int i = 0; i < result.length; i++) {
+            result[i] = docItems[result[i]];
+        }
+        return result;
+    }
+
+    /**
+     *  Returns documents holding all of the specified phrases.
+     */
+    private int[] findAll(ArrayList terms) {
+        int[] docs = findPhrase((String[])terms.get(0));
+        for (int i = 1; (i < terms.size()) && (docs.length > 0); i++) {
+            docs = intersect(docs, findPhrase((String[])terms.get(i)));
+        }
+        return docs;
+    }
+
+    /**
+     *  Returns documents holding the words of the phrase next to each
+     *  other, in order.
+     */
+    private int[] findPhrase(String[] phrase) {
+        PostingReader[] readers = new PostingReader[phrase.length];
+        for (int i = 0; i < phrase.length; i++) {
+            readers[i] = getPostings(phrase[i]);
+            if (readers[i] == null) {
+                return new int[0];
+            }
+        }
+
+        int[] docs = new int[16];
+        int count = 0;
+        if (!readers[0].next()) {
+            return new int[0];
+        }
+        int target = readers[0].getDoc();
+        int matched = 1;
+        int r = 1 % readers.length;
+        while (true) {
+            // Move each reader to the target document.
+            if (matched < readers.length) {
+                PostingReader reader = readers[r];
+                boolean found = reader.next();
+                while (found && (reader.getDoc() < target)) {
+                    found = reader.next();
+                }
+                if (!found) { break; }
+                if (reader.getDoc() == target) {
+                    matched++;
+                } else {
+                    target = reader.getDoc();
+                    matched = 1;
+                }
+                r = (r + 1) % readers.length;
+                continue;
+            }
+
+            // All words are in target document; check positions.
+            if (isPhrase(readers)) {
+                if (count == docs.length) {
+                    docs = grow(docs);
+                }
+                docs[count++] = target;
+            }
+            if (!readers[r].next()) { break; }
+            target = readers[r].getDoc();
+            matched = 1;
+            r = (r + 1) % readers.length;
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(docs, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     *  Returns true if the current postings hold the words in order at
+     *  consecutive positions.
+     */
+    private static boolean isPhrase(PostingReader[] readers) {
+        int[] first = readers[0].getPositions();
+        for (int p = 0; p < readers[0].getCount(); p++) {
+            boolean found = true;
+            for (int i = 1; found && (i < readers.length); i++) {
+                found = (Arrays.binarySearch(readers[i].getPositions(), 0,
+                    readers[i].getCount(), first[p] + i) >= 0);
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *  Returns postings reader for the specified word, or null if the word
+     *  is not in the index, or the index was not current when opened.
+     */
+    private PostingReader getPostings(String word) {
+        int index = Arrays.binarySearch(words, word);
+        if ((index < 0) || (buffer == null)) {
+            return null;
+        }
+        return new PostingReader(buffer, postingStart[index],
+            postingStart[index + 1]);
+    }
+
+    /**
+     *  Opens the index file to read the postings of each word in
+     *  dictionary order with readPostings().  The file is read without
+     *  mapping it, so it may be replaced once the stream is closed.
+     */
+    DataInputStream openPostings() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(indexFile), 65536));
+        try {
+            long skip = postingStart[0];
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    throw new EOFException("Index file is damaged.");
+                }
+                skip -= skipped;
+            }
+            return in;
+        }
+        catch (IOException iox) {
+            in.close();
+            throw iox;
+        }
+    }
+
+    /**
+     *  Reads the postings of the word at the specified position in the
+     *  dictionary from a stream returned by openPostings().  Words must
+     *  be read in order.
+     */
+    PostingReader readPostings(DataInputStream in, int index)
+        throws IOException {
+        byte[] bytes = new byte[postingStart[index + 1] - postingStart[index]];
+        in.readFully(bytes);
+        return new PostingReader(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /** Returns word at the specified position in the dictionary.
+     */
+    String getWord(int index) {
+        return words[index];
+    }
+
+    int getDocItem(int doc) {
+        return docItems[doc];
+    }
+
+    int getDocAddress(int doc) {
+        return docAddresses[doc];
+    }
+
+    int getDocLength(int doc) {
+        return docLengths[doc];
+    }
+
+    int getDocCheck(int doc) {
+        return docChecks[doc];
+    }
+
+    /**
+     *  Splits text into words.
+     */
+    private static String[] split(String text) {
+        ArrayList list = new ArrayList();
+        Tokenizer tokenizer = new Tokenizer(text, false);
+        String word = tokenizer.next();
+        while (word != null) {
+            list.add(word);
+            word = tokenizer.next();
+        }
+        return (String[])list.toArray(new String[list.size()]);
+    }
+
+    /**
+     *  Returns values found in both sorted arrays.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < a.length) && (j < b.length)) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     *  Returns values found in either sorted array.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < a.length) || (j < b.length)) {
+            if ((j >= b.length) || ((i < a.length) && (a[i] < b[j]))) {
+                result[count++] = a[i++];
+            } else if ((i >= a.length) || (b[j] < a[i])) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     *  Returns a new array twice the size of the specified array, holding
+     *  the same values.
+     */
+    static int[] grow(int[] array) {
+        int[] newArray = new int[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    /**
+     *  Reads variable-length int from buffer.
+     */
+    private static int readInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
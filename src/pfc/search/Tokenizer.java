@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+/**
+ *  Splits text into words for the search index.  A word is a run of
+ *  letters and digits, converted to lower case.  Words longer than
+ *  MAX_LENGTH characters are cut short.  Optionally, HTML tags are
+ *  skipped so that tag and attribute names are not indexed.
+ *
+ *  @author Ernie Yu
+ */
+public class Tokenizer {
+
+    /** Maximum number of characters kept in a word. */
+    public static final int MAX_LENGTH = 64;
+
+    // maximum length of a tag that is skipped
+    private static final int MAX_TAG_LENGTH = 1024;
+
+    private String text;
+    private int pos;
+    private boolean skipTags;
+    private char[] word;
+
+    /**
+     *  Constructor.
+     *  @param text text to split into words
+     *  @param skipTags true to skip HTML tags
+     */
+    public Tokenizer(String text, boolean skipTags) {
+        this.text = (text != null) ? text : "";
+        this.skipTags = skipTags;
+        pos = 0;
+        word = new char[MAX_LENGTH];
+    }
+
+    /**
+     *  Returns the next word in lower case, or null if there are no more
+     *  words.
+     */
+    public String next() {
+        int length = text.length();
+        while (pos < length) {
+            char chr = text.charAt(pos);
+            if (Character.isLetterOrDigit(chr)) {
+                // Collect word characters.
+                int count = 0;
+                while ((pos < length) &&
+                       Character.isLetterOrDigit(chr = text.charAt(pos))) {
+                    if (count < MAX_LENGTH) {
+                        word[count++] = Character.toLowerCase(chr);
+                    }
+                    pos++;
+                }
+                return new String(word, 0, count);
+            }
+            else if ((chr == '<') && skipTags) {
+                pos = skipTag(pos);
+            }
+            else {
+                pos++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     *  Returns the index after the tag starting at the specified index.
+     *  If the text does not look like a tag, returns the next index.
+     */
+    private int skipTag(int start) {
+        int next = start + 1;
+        if ((next >= text.length()) ||
+            !(Character.isLetter(text.charAt(next)) ||
+              (text.charAt(next) == '/') || (text.charAt(next) == '!'))) {
+            return next;
+        }
+        int limit = Math.min(text.length(), start + MAX_TAG_LENGTH);
+        for (int end = next; end < limit; end++) {
+            if (text.charAt(end) == '>') {
+                return end + 1;
+            }
+        }
+        return next;
+    }
+
+}
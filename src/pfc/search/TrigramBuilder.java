@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import pfc.cab.*;
+
+/**
+ *  Creates the trigram index file for a cabinet.  If the index file
+ *  matches the cabinet, nothing is done.  Mail messages are read in
+ *  batches.  Within a batch, ranges of messages are claimed by worker
+ *  threads, which find the trigrams of each message; the trigrams are
+ *  then added to the document lists in message order on the calling
+ *  thread.  If the thread is interrupted, the build stops between
+ *  batches without writing the index file.  This class implements
+ *  Runnable and may be passed into a thread for execution.
+ *
+ *  @author Ernie Yu
+ */
+public class TrigramBuilder implements Runnable {
+
+    // number of messages read before their trigrams are added to lists
+    private static final int BATCH_SIZE = 8192;
+
+    // number of messages claimed by a worker at one time
+    private static final int RANGE_SIZE = 64;
+
+    private Cabinet cabinet;
+    private TrigramIndex index;
+    private int threadCount;
+    private int progressPct;
+    private Exception exception;
+
+    // Shared state for workers.
+    private int[] docItems;
+    private int[][] batchKeys;
+    private int batchStart;
+    private int batchEnd;
+    private int nextDoc;
+    private volatile boolean cancelled;
+    private Throwable workException;
+
+    // Document list of each trigram key, in an open hash table.
+    private int[] hashKeys;
+    private DocList[] hashLists;
+    private int keyCount;
+
+    /**
+     *  Constructor.
+     *  @param cabinet cabinet to index
+     *  @param index trigram index for cabinet file
+     */
+    public TrigramBuilder(Cabinet cabinet, TrigramIndex index) {
+        this.cabinet = cabinet;
+        this.index = index;
+        threadCount = 1;
+        progressPct = 0;
+        exception = null;
+    }
+
+    /** Sets number of threads used to read mail messages.  The default
+     *  is one, which reads all messages on the thread calling run().
+     */
+    public void setThreadCount(int count) {
+        threadCount = Math.max(count, 1);
+    }
+
+    /**
+     *  Returns index build progress as percentage of mail messages.
+     */
+    public int getProgressPct() {
+        return progressPct;
+    }
+
+    /**
+     *  Returns index build exception, if any.  Returns null if process
+     *  completed successfully.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     *  Executes when thread is started.  Reads mail messages and writes
+     *  trigram index file, then opens the new index file.
+     */
+    public void run() {
+        try {
+            if (!index.isOpen()) {
+                index.open();
+            }
+            if (!index.isCurrent()) {
+                build();
+            }
+            progressPct = 100;
+        }
+        catch (IOException iox) {
+            exception = iox;
+        }
+        catch (RuntimeException rex) {
+            // Message could not be read by a worker.
+            exception = rex;
+        }
+        finally {
+            docItems = null;
+            batchKeys = null;
+            hashKeys = null;
+            hashLists = null;
+        }
+    }
+
+    /**
+     *  Reads mail messages in cabinet, and writes new index file.
+     */
+    private void build() throws IOException {
+        // Remember cabinet file before reading messages.
+        File pfcFile = index.getCabinetFile();
+        long cabinetLength = pfcFile.length();
+        long cabinetModified = pfcFile.lastModified();
+
+        // Find mail data items.
+        ItemTable table = cabinet.getItemTable();
+        int size = table.size();
+        int docCount = 0;
+        docItems = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (table.getType(i) == CabinetItem.MAIL_DATA) {
+                docItems[docCount++] = i;
+            }
+        }
+
+        hashKeys = new int[1 << 16];
+        hashLists = new DocList[hashKeys.length];
+        keyCount = 0;
+        batchKeys = new int[BATCH_SIZE][];
+        for (batchStart = 0; batchStart < docCount; batchStart += BATCH_SIZE) {
+            // Check if thread interrupted.
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException(
+                    "Trigram index build interrupted.");
+            }
+            batchEnd = Math.min(batchStart + BATCH_SIZE, docCount);
+            readBatch();
+            for (int doc = batchStart; doc < batchEnd; doc++) {
+                int[] docKeys = batchKeys[doc - batchStart];
+                for (int i = 0; i < docKeys.length; i++) {
+                    getList(docKeys[i]).add(doc);
+                }
+                batchKeys[doc - batchStart] = null;
+            }
+            progressPct = (int)(90L * batchEnd / docCount);
+        }
+
+        writeIndex(cabinetLength, cabinetModified, docCount);
+        index.open();
+    }
+
+    /**
+     *  Finds the trigrams of all messages in the current batch.  If more
+     *  than one thread is used, the messages are divided into ranges that
+     *  are claimed by worker threads.
+     */
+    private void readBatch() throws IOException {
+        nextDoc = batchStart;
+        cancelled = false;
+        workException = null;
+        int workers = Math.min(threadCount,
+            (batchEnd - batchStart + RANGE_SIZE - 1) / RANGE_SIZE);
+        if (workers <= 1) {
+            // Read all messages on the current thread.
+            new KeyReader().run();
+        }
+        else {
+            // Start worker threads, and wait for them to finish.
+            Thread[] threads = new Thread[workers];
+            for (int t = 0; t < workers; t++) {
+                threads[t] = new Thread(new KeyReader(), "TrigramBuilder-" + t);
+                threads[t].start();
+            }
+            boolean interrupted = false;
+            for (int t = 0; t < workers; t++) {
+                while (threads[t].isAlive()) {
+                    try { threads[t].join(); }
+                    catch (InterruptedException iex) {
+                        // Stop workers after their current range.
+                        interrupted = true;
+                        cancelled = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                // Keep interrupt for the caller, and stop the build.
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                    "Trigram index build interrupted.");
+            }
+        }
+
+        // Report first problem found by any worker.
+        if (workException instanceof RuntimeException) {
+            throw (RuntimeException)workException;
+        }
+        else if (workException instanceof Error) {
+            throw (Error)workException;
+        }
+    }
+
+    /**
+     *  Returns first document of the next range to read, or -1 if there
+     *  are no more documents in the batch.
+     */
+    private synchronized int nextRange() {
+        if (cancelled || (workException != null) || (nextDoc >= batchEnd)) {
+            return -1;
+        }
+        int start = nextDoc;
+        nextDoc += RANGE_SIZE;
+        return start;
+    }
+
+    /**
+     *  Saves the first exception thrown by a worker, and stops the others.
+     */
+    private synchronized void fail(Throwable ex) {
+        if (workException == null) {
+            workException = ex;
+        }
+    }
+
+    /**
+     *  Returns document list for trigram key, creating it if necessary.
+     */
+    private DocList getList(int key) {
+        int mask = hashKeys.length - 1;
+        int slot = (key * 0x9e3779b1) >>> 8 & mask;
+        while (hashLists[slot] != null) {
+            if (hashKeys[slot] == key) {
+                return hashLists[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Add new key, and grow table when half full.
+        DocList list = new DocList();
+        hashKeys[slot] = key;
+        hashLists[slot] = list;
+        keyCount++;
+        if (2 * keyCount > hashKeys.length) {
+            int[] oldKeys = hashKeys;
+            DocList[] oldLists = hashLists;
+            hashKeys = new int[oldKeys.length * 2];
+            hashLists = new DocList[oldKeys.length * 2];
+            mask = hashKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldLists[i] != null) {
+                    slot = (oldKeys[i] * 0x9e3779b1) >>> 8 & mask;
+                    while (hashLists[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashKeys[slot] = oldKeys[i];
+                    hashLists[slot] = oldLists[i];
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     *  Writes index file.  The index is written to a temporary file
+     *  first, which then replaces the old index file.
+     */
+    private void writeIndex(long cabinetLength, long cabinetModified,
+        int docCount) throws IOException {
+
+        // Sort keys, and find start of each document list.
+        int[] keys = new int[keyCount];
+        int count = 0;
+        for (int i = 0; i < hashKeys.length; i++) {
+            if (hashLists[i] != null) {
+                keys[count++] = hashKeys[i];
+            }
+        }
+        java.util.Arrays.sort(keys);
+        DocList[] lists = new DocList[keyCount];
+        int[] starts = new int[keyCount + 1];
+        for (int i = 0; i < keyCount; i++) {
+            lists[i] = getList(keys[i]);
+            starts[i + 1] = starts[i] + lists[i].size();
+        }
+
+        File indexFile = index.getFile();
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(
+                new FileOutputStream(tempFile), 65536);
+
+            // Write header and tables.
+            ByteBuffer header = ByteBuffer.allocate(TrigramIndex.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.put(TrigramIndex.INDEX_ID);
+            header.putLong(cabinetLength);
+            header.putLong(cabinetModified);
+            header.putInt(docCount);
+            header.putInt(keyCount);
+            out.write(header.array());
+            writeInts(out, docItems, docCount);
+            writeInts(out, keys, keyCount);
+            writeInts(out, starts, keyCount + 1);
+
+            // Write document lists.
+            for (int i = 0; i < keyCount; i++) {
+                out.write(lists[i].getBytes(), 0, lists[i].size());
+            }
+            out.close();
+            out = null;
+
+            // Replace existing index file.
+            index.close();
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+                throw new IOException("Could not write index file " +
+                    indexFile.getPath());
+            }
+        }
+        finally {
+            if (out != null) {
+                try { out.close(); }
+                catch (IOException iox) {}
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     *  Writes the first count values of an int array in little-endian
+     *  order.
+     */
+    private static void writeInts(OutputStream out, int[] values, int count)
+        throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4 * count);
+        bytes.order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(values, 0, count);
+        out.write(bytes.array());
+    }
+
+    /**
+     *  Reads ranges of messages until none remain in the batch, and finds
+     *  the trigrams of each message.
+     */
+    private class KeyReader implements Runnable {
+
+        public void run() {
+            try {
+                int start = nextRange();
+                while (start >= 0) {
+                    int end = Math.min(start + RANGE_SIZE, batchEnd);
+                    for (int doc = start; doc < end; doc++) {
+                        byte[] content =
+                            cabinet.getCabinetItem(docItems[doc]).getContent();
+                        String text = (content != null) ? TrigramIndex.getText(
+                            new MailMessage(content, true)) : "";
+                        batchKeys[doc - batchStart] = TrigramIndex.getKeys(
+                            TrigramIndex.foldCase(text));
+                    }
+                    start = nextRange();
+                }
+            }
+            catch (RuntimeException rex) {
+                fail(rex);
+            }
+            catch (Error err) {
+                // Report the error instead of leaving the results of the
+                // range missing.
+                fail(err);
+            }
+            finally {
+                // End idle inflaters before the thread finishes.
+                InflaterPool.clear();
+            }
+        }
+    }
+
+}
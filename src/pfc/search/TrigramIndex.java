@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2026 Ernest Yu. All rights reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to 
+ * deal in the Software without restriction, including without limitation the 
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or 
+ * sell copies of the Software, and to permit persons to whom the Software is 
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in 
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER 
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING 
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package pfc.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.regex.Pattern;
+import pfc.cab.*;
+
+/**
+ *  Represents the trigram index file for a cabinet.  For every sequence
+ *  of three characters in the subject and body text of the mail messages,
+ *  the index holds the list of messages that contain it.  The file is
+ *  named &lt;cabinet&gt;.pfctri and is kept in the cabinet directory.  It
+ *  is created by TrigramBuilder.
+ *  <p>
+ *  A substring or regular expression search first finds the messages
+ *  that contain every trigram of the search text, then reads only those
+ *  messages to check for an actual match.  Text is compared without
+ *  regard to case.  Once opened, the index may be searched by several
+ *  threads at the same time.
+ *
+ *  @author Ernie Yu
+ */
+public class TrigramIndex {
+
+    public static final String INDEX_EXT = ".pfctri";
+
+    /** Number of characters in each indexed sequence. */
+    public static final int GRAM_LENGTH = 3;
+
+    static final byte[] INDEX_ID =
+        { 'P', 'F', 'C', 'T', 'R', 'I', '0', '2' };
+    static final int HEADER_SIZE = 32;
+
+    private File pfcFile;
+    private File indexFile;
+
+    // Contents of open index file.  Document lists are mapped only if the
+    // index was current when opened.
+    private boolean opened;
+    private ByteBuffer buffer;
+    private long cabinetLength;
+    private long cabinetModified;
+    private int[] docItems;         // item index of each document
+    private int[] keys;             // trigram keys in increasing order
+    private int[] listStart;        // start of document list for each key
+
+    /** Creates a new instance of TrigramIndex.
+     *  @param pfcFile cabinet file
+     */
+    public TrigramIndex(File pfcFile) {
+        this.pfcFile = pfcFile;
+        String indexName = pfcFile.getName();
+        // Remove cabinet file extension.
+        int lastDot = indexName.lastIndexOf(".");
+        if (lastDot > 0) {
+            indexName = indexName.substring(0, lastDot);
+        }
+        indexFile = new File(pfcFile.getParent(), indexName + INDEX_EXT);
+        close();
+    }
+
+    /** Returns File object representing index path and file name.
+     */
+    public File getFile() {
+        return indexFile;
+    }
+
+    /** Returns File object representing cabinet path and file name.
+     */
+    public File getCabinetFile() {
+        return pfcFile;
+    }
+
+    /**
+     *  Opens index file, and reads the document and key tables.  Returns
+     *  false if the index file does not exist or is damaged.
+     */
+    public boolean open() {
+        close();
+        if (!indexFile.exists()) {
+            return false;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(indexFile, "r");
+            long fileSize = file.length();
+            if ((fileSize < HEADER_SIZE) || (fileSize > Integer.MAX_VALUE)) {
+                return false;
+            }
+
+            // Check file id, and read header.  The tables are read with a
+            // plain read, and the document lists are mapped only if the
+            // index matches the cabinet.  A stale index is replaced by
+            // TrigramBuilder, and a mapped file cannot be deleted or
+            // replaced on some systems.
+            byte[] headerBytes = new byte[HEADER_SIZE];
+            file.readFully(headerBytes);
+            ByteBuffer header = ByteBuffer.wrap(headerBytes);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] id = new byte[INDEX_ID.length];
+            header.get(id);
+            for (int i = 0; i < id.length; i++) {
+                if (id[i] != INDEX_ID[i]) { return false; }
+            }
+            long length = header.getLong();
+            long modified = header.getLong();
+            int docCount = header.getInt();
+            int keyCount = header.getInt();
+            long listBase = HEADER_SIZE + 4L * docCount + 8L * keyCount + 4L;
+            if ((docCount < 0) || (keyCount < 0) || (listBase > fileSize)) {
+                return false;
+            }
+
+            // Read tables.
+            int[] items = new int[docCount];
+            int[] keyTable = new int[keyCount];
+            int[] starts = new int[keyCount + 1];
+            byte[] tableBytes = new byte[(int)(listBase - HEADER_SIZE)];
+            file.readFully(tableBytes);
+            ByteBuffer table = ByteBuffer.wrap(tableBytes);
+            table.order(ByteOrder.LITTLE_ENDIAN);
+            IntBuffer ints = table.asIntBuffer();
+            ints.get(items);
+            ints.get(keyTable);
+            ints.get(starts);
+            for (int i = 0; i <= keyCount; i++) {
+                starts[i] += (int)listBase;
+                if ((starts[i] > fileSize) ||
+                    ((i > 0) && (starts[i] < starts[i - 1]))) {
+                    return false;
+                }
+            }
+            if (starts[keyCount] != fileSize) {
+                return false;
+            }
+
+            // Map document lists of a current index.
+            ByteBuffer map = null;
+            if ((length == pfcFile.length()) &&
+                (modified == pfcFile.lastModified())) {
+                map = file.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            opened = true;
+            buffer = map;
+            cabinetLength = length;
+            cabinetModified = modified;
+            docItems = items;
+            keys = keyTable;
+            listStart = starts;
+            return true;
+        }
+        catch (IOException iox) {
+            return false;
+        }
+        catch (RuntimeException rex) {
+            // Index file is damaged.
+            return false;
+        }
+        finally {
+            if (file != null) {
+                try { file.close(); }
+                catch (IOException iox) {}
+            }
+        }
+    }
+
+    /** Returns true if the index file is open.
+     */
+    public boolean isOpen() {
+        return opened;
+    }
+
+    /** Returns true if the index file is open, and was built from the
+     *  cabinet file as it is now.
+     */
+    public boolean isCurrent() {
+        return isOpen() && (cabinetLength == pfcFile.length()) &&
+            (cabinetModified == pfcFile.lastModified());
+    }
+
+    /** Releases the contents of the index file.
+     */
+    public void close() {
+        opened = false;
+        buffer = null;
+        cabinetLength = 0L;
+        cabinetModified = 0L;
+        docItems = new int[0];
+        keys = new int[0];
+        listStart = new int[1];
+    }
+
+    /** Returns number of mail messages in index.
+     */
+    public int getDocCount() {
+        return docItems.length;
+    }
+
+    /** Returns number of distinct trigrams in index.
+     */
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    /**
+     *  Returns item indexes of the mail data items whose subject or body
+     *  text contains the specified text, in increasing order.
+     */
+    public int[] findText(Cabinet cabinet, String text) {
+        String foldedText = foldCase(text);
+        int[] docs = getCandidates(new String[] { foldedText });
+        int[] result = new int[docs.length];
+        int count = 0;
+        for (int i = 0; i < docs.length; i++) {
+            int item = docItems[docs[i]];
+            if (foldCase(getText(cabinet, item)).indexOf(foldedText) >= 0) {
+                result[count++] = item;
+            }
+        }
+        return trim(result, count);
+    }
+
+    /**
+     *  Returns item indexes of the mail data items whose subject or body
+     *  text contains a match for the specified pattern, in increasing
+     *  order.
+     */
+    public int[] findPattern(Cabinet cabinet, Pattern pattern) {
+        int[] docs = getCandidates(PatternLiterals.getLiterals(pattern));
+        int[] result = new int[docs.length];
+        int count = 0;
+        for (int i = 0; i < docs.length; i++) {
+            int item = docItems[docs[i]];
+            if (pattern.matcher(getText(cabinet, item)).find()) {
+                result[count++] = item;
+            }
+        }
+        return trim(result, count);
+    }
+
+    /**
+     *  Returns documents that contain every trigram of the specified
+     *  case folded literals.  If there are no trigrams, returns all
+     *  documents.  Returns no documents if the index was not current when
+     *  opened.
+     */
+    int[] getCandidates(String[] literals) {
+        if (buffer == null) {
+            return new int[0];
+        }
+        // Find document list of each distinct trigram.
+        int[] gramKeys = new int[0];
+        for (int i = 0; i < literals.length; i++) {
+            int[] literalKeys = getKeys(literals[i]);
+            int[] merged = new int[gramKeys.length + literalKeys.length];
+            System.arraycopy(gramKeys, 0, merged, 0, gramKeys.length);
+            System.arraycopy(literalKeys, 0, merged, gramKeys.length,
+                literalKeys.length);
+            gramKeys = unique(merged, merged.length);
+        }
+        if (gramKeys.length == 0) {
+            int[] docs = new int[docItems.length];
+            for (int i = 0; i < docs.length; i++) {
+                docs[i] = i;
+            }
+            return docs;
+        }
+        int[] lists = new int[gramKeys.length];
+        for (int i = 0; i < gramKeys.length; i++) {
+            lists[i] = Arrays.binarySearch(keys, gramKeys[i]);
+            if (lists[i] < 0) {
+                return new int[0];
+            }
+        }
+
+        // Intersect lists, starting with the shortest.
+        sortByLength(lists);
+        int[] docs = readList(lists[0]);
+        for (int i = 1; (i < lists.length) && (docs.length > 0); i++) {
+            docs = intersect(docs, readList(lists[i]));
+        }
+        return docs;
+    }
+
+    /**
+     *  Returns document list at the specified position in the key table.
+     */
+    private int[] readList(int index) {
+        return DocList.read(buffer, listStart[index], listStart[index + 1]);
+    }
+
+    /**
+     *  Sorts key table positions by the length of their document lists.
+     */
+    private void sortByLength(int[] lists) {
+        for (int i = 1; i < lists.length; i++) {
+            int list = lists[i];
+            int length = listStart[list + 1] - listStart[list];
+            int j = i;
+            while ((j > 0) && (listStart[lists[j - 1] + 1] -
+                listStart[lists[j - 1]] > length)) {
+                lists[j] = lists[j - 1];
+                j--;
+            }
+            lists[j] = list;
+        }
+    }
+
+    /**
+     *  Returns the subject and body text of a mail message, which is the
+     *  text that is indexed and searched.
+     */
+    static String getText(MailMessage message) {
+        return message.getSubject() + "\n" + message.getBodyText();
+    }
+
+    /**
+     *  Returns the subject and body text of the mail message at the
+     *  specified item index.
+     */
+    private static String getText(Cabinet cabinet, int item) {
+        byte[] content = cabinet.getCabinetItem(item).getContent();
+        if (content == null) {
+            return "";
+        }
+        return getText(new MailMessage(content, true));
+    }
+
+    /**
+     *  Returns the trigram keys of the specified case folded text, in
+     *  increasing order without duplicates.
+     */
+    static int[] getKeys(String text) {
+        int count = text.length() - GRAM_LENGTH + 1;
+        if (count <= 0) {
+            return new int[0];
+        }
+        int[] textKeys = new int[count];
+        char chr1 = text.charAt(0);
+        char chr2 = text.charAt(1);
+        for (int i = 0; i < count; i++) {
+            char chr3 = text.charAt(i + 2);
+            textKeys[i] = getKey(chr1, chr2, chr3);
+            chr1 = chr2;
+            chr2 = chr3;
+        }
+        return unique(textKeys, count);
+    }
+
+    /**
+     *  Returns key for a trigram.  Characters below 256 are stored
+     *  exactly in 24 bits.  Other trigrams are hashed into the same range,
+     *  which may find extra messages, but never misses a message.
+     */
+    static int getKey(char chr1, char chr2, char chr3) {
+        if ((chr1 | chr2 | chr3) < 256) {
+            return (chr1 << 16) | (chr2 << 8) | chr3;
+        }
+        return ((chr1 * 961) + (chr2 * 31) + chr3) & 0xffffff;
+    }
+
+    /**
+     *  Returns text with the case of each character folded by foldCase().
+     *  The length of the text is not changed.
+     */
+    static String foldCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = foldCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     *  Returns the lower case of the upper case of a character.  Letters
+     *  that a case-insensitive Unicode pattern treats as equal, such as
+     *  final and medial sigma, or long s and s, fold to the same
+     *  character.
+     */
+    static char foldCase(char chr) {
+        return Character.toLowerCase(Character.toUpperCase(chr));
+    }
+
+    /**
+     *  Sorts the first count values of an array, and returns them without
+     *  duplicates.
+     */
+    private static int[] unique(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if ((size == 0) || (values[i] != values[size - 1])) {
+                values[size++] = values[i];
+            }
+        }
+        return trim(values, size);
+    }
+
+    /**
+     *  Returns values found in both sorted arrays.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < a.length) && (j < b.length)) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return trim(result, count);
+    }
+
+    /**
+     *  Returns the first count values of an array.
+     */
+    private static int[] trim(int[] values, int count) {
+        if (count == values.length) {
+            return values;
+        }
+        int[] result = new int[count];
+        System.arraycopy(values, 0, result, 0, count);
+        return result;
+    }
+
+}
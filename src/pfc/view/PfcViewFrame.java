@@ -37,6 +37,7 @@ import pfc.images.*;
  *
  *  @author Ernie Yu
  *  <br>29 Mar 2002 - MailSelectionListener skips adjusting list events.
+ *  <br>17 Oct 2026 - Exports folders with worker threads.
  */
 public class PfcViewFrame extends javax.swing.JFrame {
     
@@ -308,7 +309,7 @@ public class PfcViewFrame extends javax.swing.JFrame {
     }
     
     // Custom variables
-    private RandomAccessFile pfcFile;
+    private CabinetReader pfcReader;
     private Cabinet cabinet;
     private CabinetTableModel tableModel;
     private File lastExportDir = new File(System.getProperty("user.dir"));
@@ -402,8 +403,10 @@ public class PfcViewFrame extends javax.swing.JFrame {
 
             // Open the cabinet file in read-only mode
             try {
-                pfcFile = new RandomAccessFile(filename, "r");
-            } catch (FileNotFoundException ex) {
+                CabinetReaderFactory factory = 
+                    new CabinetReaderFactory(CabinetReader.MAPPED);
+                pfcReader = factory.getReader(new File(filename));
+            } catch (IOException ex) {
                 jOptionPane1.showMessageDialog(PfcViewFrame.this, ex.toString(),
                         "Open Cabinet", JOptionPane.ERROR_MESSAGE);
                 jTextStatus.setText("Could not read cabinet file " + filename);
@@ -414,7 +417,9 @@ public class PfcViewFrame extends javax.swing.JFrame {
             ProgressDialog dialog = new ProgressDialog(PfcViewFrame.this, true);
         
             // Create CabinetMaker and start thread to read cabinet file.
-            CabinetMaker maker = new CabinetMaker(pfcFile);
+            CabinetMaker maker = new CabinetMaker(pfcReader);
+            maker.setThreadCount(Runtime.getRuntime().availableProcessors());
+            maker.setIndexCache(new IndexCache(new File(filename)));
             maker.setProgressBar(dialog.getProgressBar());
             maker.setProgressDialog(dialog);
             Thread thread = new Thread(maker);
@@ -473,9 +478,9 @@ public class PfcViewFrame extends javax.swing.JFrame {
             jTreeFolders.setModel(null);
             tableModel.setCabinet(null);
             // Close cabinet file.
-            if (pfcFile != null) {
+            if (pfcReader != null) {
                 try {
-                    pfcFile.close();
+                    pfcReader.close();
                 } catch (IOException iox) {}
             }
             enableMenuItems();
@@ -629,7 +634,8 @@ public class PfcViewFrame extends javax.swing.JFrame {
                 Exporter exporter = factory.getExporter(selectedFile);
                 int exportCount = 0;
                 try {
-                    exportCount = cabinet.export(folder, exporter);
+                    exportCount = cabinet.export(folder, exporter, 
+                        Runtime.getRuntime().availableProcessors());
                 }
                 catch (ExportException ex) {
                     jOptionPane1.showMessageDialog(PfcViewFrame.this, 
@@ -637,7 +643,14 @@ public class PfcViewFrame extends javax.swing.JFrame {
                         "Export", JOptionPane.ERROR_MESSAGE);
                 }
                 finally {
-                    exporter.close();
+                    try {
+                        exporter.close();
+                    }
+                    catch (IOException iox) {
+                        jOptionPane1.showMessageDialog(PfcViewFrame.this,
+                            iox.toString(),
+                            "Export", JOptionPane.ERROR_MESSAGE);
+                    }
                     jOptionPane1.showMessageDialog(PfcViewFrame.this, 
                         String.valueOf(exportCount) + " items exported to " +
                         selectedFile.getAbsolutePath(), 